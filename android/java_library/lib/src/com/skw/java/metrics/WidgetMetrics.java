@@ -0,0 +1,175 @@
+package com.skw.java.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 控件的耗时统计
+ *
+ * 按操作(布局、绘制、设置数据、滚动)分别记录纳秒级耗时，保存在无锁的直方图中，
+ * 可以随时通过snapshot()获取p50/p90/p99等数据。
+ * 控件默认不持有WidgetMetrics，此时不会有任何额外开销；
+ * 通过TrendView.setMetrics()或WheelView.setMetrics()开启统计，多个控件可以共用同一个WidgetMetrics。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class WidgetMetrics {
+    // onLayout()
+    public static final int OP_LAYOUT   = 0;
+    // draw()/onDraw()
+    public static final int OP_DRAW     = 1;
+    // setData()/setDataArray()
+    public static final int OP_SET_DATA = 2;
+    // 滚动/平移的回调
+    public static final int OP_SCROLL   = 3;
+    private static final int OP_COUNT   = 4;
+
+    private final LatencyHistogram[] mHistograms = new LatencyHistogram[OP_COUNT];
+
+    public WidgetMetrics() {
+        for (int i=0; i<OP_COUNT; i++) {
+            mHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 记录一次操作的耗时
+     *
+     * @param op    操作，OP_LAYOUT等
+     * @param nanos 耗时(纳秒)
+     */
+    public void record(int op, long nanos) {
+        mHistograms[op].record(nanos);
+    }
+
+    /**
+     * 获取某个操作当前的统计数据
+     */
+    public Snapshot snapshot(int op) {
+        return mHistograms[op].snapshot();
+    }
+
+    /**
+     * 清空所有统计数据
+     */
+    public void reset() {
+        for (int i=0; i<OP_COUNT; i++) {
+            mHistograms[i].reset();
+        }
+    }
+
+    /**
+     * 统计数据(单位：纳秒)
+     */
+    public static class Snapshot {
+        public final long count;
+        public final long p50;
+        public final long p90;
+        public final long p99;
+        public final long max;
+
+        Snapshot(long count, long p50, long p90, long p99, long max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        @Override
+        public String toString() {
+            return "count="+count+", p50="+p50+"ns, p90="+p90+"ns, p99="+p99+"ns, max="+max+"ns";
+        }
+    }
+
+    /**
+     * 对数-线性分桶的直方图(类似HdrHistogram)
+     *
+     * 每个2的幂区间再等分为SUB_BUCKETS个桶，相对误差不超过1/SUB_BUCKETS。
+     * 记录时只有原子自增，不加锁。
+     */
+    static class LatencyHistogram {
+        // 每个2的幂区间内的桶数(2^SUB_BITS)
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+        private final AtomicLongArray mCounts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong mMax = new AtomicLong();
+
+        void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            mCounts.incrementAndGet(indexOf(value));
+
+            long max = mMax.get();
+            while (value>max && !mMax.compareAndSet(max, value)) {
+                max = mMax.get();
+            }
+        }
+
+        void reset() {
+            for (int i=0; i<BUCKETS; i++) {
+                mCounts.set(i, 0);
+            }
+            mMax.set(0);
+        }
+
+        Snapshot snapshot() {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i=0; i<BUCKETS; i++) {
+                counts[i] = mCounts.get(i);
+                total += counts[i];
+            }
+            long max = mMax.get();
+            return new Snapshot(total,
+                    Math.min(percentile(counts, total, 0.50), max),
+                    Math.min(percentile(counts, total, 0.90), max),
+                    Math.min(percentile(counts, total, 0.99), max),
+                    max);
+        }
+
+        /**
+         * 百分位数所在桶的上界
+         */
+        private static long percentile(long[] counts, long total, double p) {
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long)Math.ceil(total * p);
+            long sum = 0;
+            for (int i=0; i<counts.length; i++) {
+                sum += counts[i];
+                if (sum >= target) {
+                    return upperBoundOf(i);
+                }
+            }
+            return upperBoundOf(counts.length-1);
+        }
+
+        /**
+         * value所在的桶：小于SUB_BUCKETS的值各占一个桶，
+         * 其余按最高位所在的2的幂区间和接下来的SUB_BITS位定位。
+         */
+        private static int indexOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int)value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+            int sub = (int)(value >>> shift) - SUB_BUCKETS;
+            return (shift+1)*SUB_BUCKETS + sub;
+        }
+
+        private static long upperBoundOf(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int shift = index/SUB_BUCKETS - 1;
+            long sub = index%SUB_BUCKETS + SUB_BUCKETS;
+            return ((sub+1) << shift) - 1;
+        }
+    }
+}
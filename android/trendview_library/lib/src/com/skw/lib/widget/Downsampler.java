@@ -0,0 +1,24 @@
+package com.skw.lib.widget;
+
+/**
+ * 降采样接口
+ *
+ * 当数据个数多于可显示的像素列数时，从数据中挑选出一部分有代表性的点。
+ * 实现类只依赖IntSeries，不依赖Android，可以直接在JVM上测试。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public interface Downsampler {
+
+    /**
+     * 对data中[from, to)范围内的数据进行降采样
+     *
+     * @param data      原始数据
+     * @param from      起始索引(包含)
+     * @param to        结束索引(不包含)
+     * @param threshold 期望保留的点数
+     * @param indices   输出：被保留的数据在data中的索引(升序)，调用前会被清空
+     */
+    public void downsample(IntSeries data, int from, int to, int threshold, IntSeries indices);
+}
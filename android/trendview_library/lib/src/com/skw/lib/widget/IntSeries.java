@@ -0,0 +1,140 @@
+package com.skw.lib.widget;
+
+import java.util.List;
+
+/**
+ * 基于int[]的数据序列
+ *
+ * 直接保存基本类型，避免ArrayList<Integer>带来的装箱/拆箱。
+ * 数组只会增长，不会缩小；清空之后可以直接复用。
+ * 内部按环形缓冲区存储，因此removeFirst()也是O(1)的。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class IntSeries {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // 数据
+    private int[] mValues;
+    // 第0个数据在mValues中的位置
+    private int mHead;
+    // 数据的个数
+    private int mSize;
+
+    public IntSeries() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntSeries(int capacity) {
+        mValues = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * 数据的个数
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * 获取第index个数据
+     */
+    public int get(int index) {
+        if (index<0 || index>=mSize) {
+            throw new IndexOutOfBoundsException("index="+index+", size="+mSize);
+        }
+        return mValues[position(index)];
+    }
+
+    /**
+     * 修改第index个数据
+     */
+    public void set(int index, int value) {
+        if (index<0 || index>=mSize) {
+            throw new IndexOutOfBoundsException("index="+index+", size="+mSize);
+        }
+        mValues[position(index)] = value;
+    }
+
+    /**
+     * 在末尾添加数据
+     */
+    public void add(int value) {
+        ensureCapacity(mSize+1);
+        mValues[position(mSize)] = value;
+        mSize++;
+    }
+
+    /**
+     * 移除并返回第0个数据
+     */
+    public int removeFirst() {
+        if (mSize == 0) {
+            throw new IndexOutOfBoundsException("series is empty");
+        }
+        int value = mValues[mHead];
+        mHead = (mHead+1) % mValues.length;
+        mSize--;
+        return value;
+    }
+
+    /**
+     * 清空数据(保留已分配的数组)
+     */
+    public void clear() {
+        mHead = 0;
+        mSize = 0;
+    }
+
+    /**
+     * 用array中的数据替换当前数据
+     */
+    public void setAll(int[] array) {
+        clear();
+        ensureCapacity(array.length);
+        System.arraycopy(array, 0, mValues, 0, array.length);
+        mSize = array.length;
+    }
+
+    /**
+     * 用list中的数据替换当前数据
+     */
+    public void setAll(List<Integer> list) {
+        int size = list.size();
+        clear();
+        ensureCapacity(size);
+        for (int i=0; i<size; i++) {
+            mValues[i] = list.get(i);
+        }
+        mSize = size;
+    }
+
+    /**
+     * 返回数据的拷贝
+     */
+    public int[] toArray() {
+        return toArray(mSize);
+    }
+
+    private int[] toArray(int length) {
+        int[] array = new int[length];
+        int first = Math.min(mSize, mValues.length-mHead);
+        System.arraycopy(mValues, mHead, array, 0, first);
+        System.arraycopy(mValues, 0, array, first, mSize-first);
+        return array;
+    }
+
+    private int position(int index) {
+        int position = mHead + index;
+        return position<mValues.length ? position : position-mValues.length;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > mValues.length) {
+            // 扩容时把环形数据展开到新数组的开头
+            mValues = toArray(Math.max(capacity, mValues.length*2));
+            mHead = 0;
+        }
+    }
+}
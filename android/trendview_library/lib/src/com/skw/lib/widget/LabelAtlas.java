@@ -0,0 +1,148 @@
+package com.skw.lib.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Paint.FontMetrics;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+import java.util.ArrayList;
+
+/**
+ * 数值标签的字形图集
+ *
+ * 温度标签只包含"0-9"、负号和上标"o"。把这些字形预先绘制到一张共享的Bitmap中，
+ * 绘制标签时直接从Bitmap中拷贝，不再调用drawText()。
+ * 图集按(字体, 字体大小, 颜色)共享；只有这些参数改变时才会重新生成。
+ *
+ * 注意：图集只在UI线程中使用。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class LabelAtlas {
+    // 数值标签中的字符
+    private static final String GLYPHS = "0123456789-";
+    // 最多同时保留的图集个数
+    private static final int MAX_ATLASES = 4;
+    // 字形之间的间隔，防止缩放过滤时相邻字形渗色
+    private static final int GLYPH_PADDING = 1;
+
+    private static final ArrayList<LabelAtlas> sAtlases = new ArrayList<LabelAtlas>();
+
+    // 生成图集时使用的参数
+    private final Typeface mTypeface;
+    private final float mFontSize;
+    private final int mFontColor;
+    private final float mUpperSize;
+    private final int mUpperColor;
+
+    private Bitmap mBitmap;
+    // 每个字形在mBitmap中的区域，最后一个是上标
+    private final Rect[] mGlyphRects = new Rect[GLYPHS.length()+1];
+    // 每个字形的步进宽度
+    private final float[] mAdvances = new float[GLYPHS.length()+1];
+    // 字形顶部相对于基线的偏移(负数)
+    private float mFontTop;
+    private float mUpperTop;
+
+    // 绘制时复用的目标区域
+    private final RectF mDst = new RectF();
+
+    private LabelAtlas(Paint fontPaint, Paint upperPaint, String upperText) {
+        mTypeface = fontPaint.getTypeface();
+        mFontSize = fontPaint.getTextSize();
+        mFontColor = fontPaint.getColor();
+        mUpperSize = upperPaint.getTextSize();
+        mUpperColor = upperPaint.getColor();
+        build(fontPaint, upperPaint, upperText);
+    }
+
+    /**
+     * 获取与fontPaint/upperPaint参数一致的图集；不存在时生成一个新的
+     */
+    public static LabelAtlas obtain(Paint fontPaint, Paint upperPaint, String upperText) {
+        for (int i=0; i<sAtlases.size(); i++) {
+            LabelAtlas atlas = sAtlases.get(i);
+            if (atlas.matches(fontPaint, upperPaint)) {
+                return atlas;
+            }
+        }
+
+        LabelAtlas atlas = new LabelAtlas(fontPaint, upperPaint, upperText);
+        if (sAtlases.size() >= MAX_ATLASES) {
+            // 丢弃最早的图集(仍在使用它的TrendView会继续持有其引用)
+            sAtlases.remove(0);
+        }
+        sAtlases.add(atlas);
+        return atlas;
+    }
+
+    /**
+     * 图集是否与fontPaint/upperPaint的参数一致
+     */
+    public boolean matches(Paint fontPaint, Paint upperPaint) {
+        return mTypeface==fontPaint.getTypeface()
+            && mFontSize==fontPaint.getTextSize()
+            && mFontColor==fontPaint.getColor()
+            && mUpperSize==upperPaint.getTextSize()
+            && mUpperColor==upperPaint.getColor();
+    }
+
+    /**
+     * 绘制标签，(x, y)与drawText()相同：x是左边界，y是基线
+     */
+    public void drawText(Canvas canvas, String text, float x, float y) {
+        for (int i=0; i<text.length(); i++) {
+            char c = text.charAt(i);
+            int glyph = (c=='-') ? GLYPHS.length()-1 : c-'0';
+            drawGlyph(canvas, glyph, x, y+mFontTop);
+            x += mAdvances[glyph];
+        }
+    }
+
+    /**
+     * 绘制上标，(x, y)与drawText()相同
+     */
+    public void drawUpper(Canvas canvas, float x, float y) {
+        drawGlyph(canvas, GLYPHS.length(), x, y+mUpperTop);
+    }
+
+    private void drawGlyph(Canvas canvas, int glyph, float left, float top) {
+        Rect src = mGlyphRects[glyph];
+        mDst.set(left, top, left+src.width(), top+src.height());
+        canvas.drawBitmap(mBitmap, src, mDst, null);
+    }
+
+    private void build(Paint fontPaint, Paint upperPaint, String upperText) {
+        Paint font = new Paint(fontPaint);
+        Paint upper = new Paint(upperPaint);
+        FontMetrics fontMetrics = font.getFontMetrics();
+        FontMetrics upperMetrics = upper.getFontMetrics();
+        mFontTop = fontMetrics.top;
+        mUpperTop = upperMetrics.top;
+        int fontHeight = (int)Math.ceil(fontMetrics.bottom - fontMetrics.top);
+        int upperHeight = (int)Math.ceil(upperMetrics.bottom - upperMetrics.top);
+
+        // 所有字形排成一行
+        int width = 0;
+        for (int i=0; i<mGlyphRects.length; i++) {
+            boolean isUpper = (i == GLYPHS.length());
+            String text = isUpper ? upperText : GLYPHS.substring(i, i+1);
+            mAdvances[i] = (isUpper ? upper : font).measureText(text);
+            int glyphWidth = (int)Math.ceil(mAdvances[i]);
+            mGlyphRects[i] = new Rect(width, 0, width+glyphWidth, isUpper ? upperHeight : fontHeight);
+            width += glyphWidth + GLYPH_PADDING;
+        }
+
+        mBitmap = Bitmap.createBitmap(Math.max(width, 1), Math.max(Math.max(fontHeight, upperHeight), 1),
+                Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(mBitmap);
+        for (int i=0; i<GLYPHS.length(); i++) {
+            canvas.drawText(GLYPHS.substring(i, i+1), mGlyphRects[i].left, -mFontTop, font);
+        }
+        canvas.drawText(upperText, mGlyphRects[GLYPHS.length()].left, -mUpperTop, upper);
+    }
+}
@@ -0,0 +1,143 @@
+package com.skw.lib.widget;
+
+import android.graphics.Paint;
+
+/**
+ * 数值标签的缓存
+ *
+ * 按数值缓存标签字符串及其宽度，避免在onLayout()中反复调用
+ * String.valueOf()和Paint.measureText()。宽度未命中时从TextMeasureCache中获取。
+ * 只在布局时访问；draw()使用布局时取出并保存在坐标数组旁边的标签。
+ * 内部是一个以int为key的开放寻址哈希表；表满时整体清空后重新填充。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class LabelCache {
+    private static final int DEFAULT_CAPACITY = 64;
+    // 最多缓存的数值个数
+    private static final int MAX_CAPACITY = 4096;
+
+    private int[] mKeys;
+    private boolean[] mUsed;
+    private String[] mLabels;
+    private float[] mWidths;
+    private int mSize;
+
+    // 计算宽度时使用的字体大小；字体变化之后宽度需要重新计算
+    private float mTextSize = -1;
+
+    public LabelCache() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 获取value对应的标签
+     */
+    public String getLabel(int value) {
+        // slotOf()可能扩容并替换mLabels，必须先取得slot再访问数组
+        int slot = slotOf(value);
+        return mLabels[slot];
+    }
+
+    /**
+     * 获取value对应的标签，使用paint测量得到的宽度
+     */
+    public float getWidth(int value, Paint paint) {
+        if (paint.getTextSize() != mTextSize) {
+            // 字体大小改变：所有宽度失效
+            for (int i=0; i<mWidths.length; i++) {
+                mWidths[i] = -1;
+            }
+            mTextSize = paint.getTextSize();
+        }
+
+        int slot = slotOf(value);
+        if (mWidths[slot] < 0) {
+            mWidths[slot] = TextMeasureCache.getWidth(paint, mLabels[slot]);
+        }
+        return mWidths[slot];
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        for (int i=0; i<mUsed.length; i++) {
+            mUsed[i] = false;
+            mLabels[i] = null;
+            mWidths[i] = -1;
+        }
+        mSize = 0;
+    }
+
+    /**
+     * 查找value所在的位置；不存在时插入
+     */
+    private int slotOf(int value) {
+        int mask = mKeys.length - 1;
+        int slot = hash(value) & mask;
+        while (mUsed[slot]) {
+            if (mKeys[slot] == value) {
+                return slot;
+            }
+            slot = (slot+1) & mask;
+        }
+
+        // 装载因子超过0.75时扩容；达到上限后清空
+        if ((mSize+1)*4 > mKeys.length*3) {
+            if (mKeys.length < MAX_CAPACITY) {
+                rehash(mKeys.length*2);
+            } else {
+                clear();
+            }
+            return slotOf(value);
+        }
+
+        mUsed[slot] = true;
+        mKeys[slot] = value;
+        mLabels[slot] = String.valueOf(value);
+        mWidths[slot] = -1;
+        mSize++;
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] keys = mKeys;
+        boolean[] used = mUsed;
+        String[] labels = mLabels;
+        float[] widths = mWidths;
+        allocate(capacity);
+
+        int mask = capacity - 1;
+        for (int i=0; i<keys.length; i++) {
+            if (used[i]) {
+                int slot = hash(keys[i]) & mask;
+                while (mUsed[slot]) {
+                    slot = (slot+1) & mask;
+                }
+                mUsed[slot] = true;
+                mKeys[slot] = keys[i];
+                mLabels[slot] = labels[i];
+                mWidths[slot] = widths[i];
+                mSize++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new int[capacity];
+        mUsed = new boolean[capacity];
+        mLabels = new String[capacity];
+        mWidths = new float[capacity];
+        mSize = 0;
+        for (int i=0; i<capacity; i++) {
+            mWidths[i] = -1;
+        }
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
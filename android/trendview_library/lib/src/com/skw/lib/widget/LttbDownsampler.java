@@ -0,0 +1,65 @@
+package com.skw.lib.widget;
+
+/**
+ * Largest-Triangle-Three-Buckets降采样
+ *
+ * 首尾两个点总是保留；其余的数据等分为(threshold-2)个桶，
+ * 每个桶中选出"与上一个选中点、下一个桶的平均点"组成的三角形面积最大的点。
+ * 能较好地保留折线的形状和峰值。横坐标使用数据的索引。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class LttbDownsampler implements Downsampler {
+
+    @Override
+    public void downsample(IntSeries data, int from, int to, int threshold, IntSeries indices) {
+        indices.clear();
+        int count = to - from;
+        if (threshold<3 || count<=threshold) {
+            for (int i=from; i<to; i++) {
+                indices.add(i);
+            }
+            return ;
+        }
+
+        // 每个桶的大小(不包含首尾两个点)
+        double bucketSize = (double)(count-2) / (threshold-2);
+        int a = from;
+        indices.add(a);
+
+        for (int bucket=0; bucket<threshold-2; bucket++) {
+            // 下一个桶的平均点
+            int nextStart = from + 1 + (int)((bucket+1)*bucketSize);
+            int nextEnd = Math.min(from + 1 + (int)((bucket+2)*bucketSize), to);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i=nextStart; i<nextEnd; i++) {
+                avgX += i;
+                avgY += data.get(i);
+            }
+            int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            // 当前桶中，与a、平均点组成的三角形面积最大的点
+            int start = from + 1 + (int)(bucket*bucketSize);
+            int end = from + 1 + (int)((bucket+1)*bucketSize);
+            int ay = data.get(a);
+            double maxArea = -1;
+            int selected = start;
+            for (int i=start; i<end; i++) {
+                double area = Math.abs((a-avgX)*(data.get(i)-ay) - (a-i)*(avgY-ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = i;
+                }
+            }
+
+            indices.add(selected);
+            a = selected;
+        }
+
+        indices.add(to-1);
+    }
+}
@@ -0,0 +1,53 @@
+package com.skw.lib.widget;
+
+/**
+ * 最大/最小值降采样
+ *
+ * 将数据等分为threshold/2个桶，每个桶保留最小值和最大值两个点(按索引顺序)。
+ * 所有的峰值和谷值都会被保留，适合用于观察极值。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class MinMaxDownsampler implements Downsampler {
+
+    @Override
+    public void downsample(IntSeries data, int from, int to, int threshold, IntSeries indices) {
+        indices.clear();
+        int count = to - from;
+        int buckets = threshold / 2;
+        if (buckets<1 || count<=threshold) {
+            for (int i=from; i<to; i++) {
+                indices.add(i);
+            }
+            return ;
+        }
+
+        double bucketSize = (double)count / buckets;
+        for (int bucket=0; bucket<buckets; bucket++) {
+            int start = from + (int)(bucket*bucketSize);
+            int end = Math.min(from + (int)((bucket+1)*bucketSize), to);
+            if (start >= end) {
+                continue;
+            }
+
+            int minIndex = start;
+            int maxIndex = start;
+            for (int i=start+1; i<end; i++) {
+                int value = data.get(i);
+                if (value < data.get(minIndex)) {
+                    minIndex = i;
+                } else if (value > data.get(maxIndex)) {
+                    maxIndex = i;
+                }
+            }
+
+            if (minIndex == maxIndex) {
+                indices.add(minIndex);
+            } else {
+                indices.add(Math.min(minIndex, maxIndex));
+                indices.add(Math.max(minIndex, maxIndex));
+            }
+        }
+    }
+}
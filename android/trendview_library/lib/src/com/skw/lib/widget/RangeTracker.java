@@ -0,0 +1,164 @@
+package com.skw.lib.widget;
+
+/**
+ * IntSeries的最大/最小值跟踪器
+ *
+ * 使用最小值/最大值线段树：
+ * (01) rescan() 自底向上建树，O(n)；
+ * (02) onAppend()/onRemoveFirst()/onReplace() 只更新一个叶子到根的路径，最坏O(log n)，
+ *      父节点的值不再变化时提前结束，随机数据下通常只需要更新几层；
+ * (03) getMin()/getMax() 直接读取根节点，O(1)。
+ *
+ * 叶子按数据的序号(第一次添加时的位置)对容量取模存放，
+ * 因此移除第0个数据时其他叶子不需要移动；序号 - mHeadSeq 即为数据在IntSeries中的索引。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class RangeTracker {
+    private static final int MIN_CAPACITY = 16;
+
+    // 被跟踪的数据
+    private final IntSeries mSeries;
+    // 最小值树和最大值树：mXxxTree[1]是根，叶子在[mCapacity, 2*mCapacity)
+    private int[] mMinTree = new int[0];
+    private int[] mMaxTree = new int[0];
+    // 叶子的个数(2的幂)
+    private int mCapacity;
+    // mSeries中第0个数据的序号
+    private int mHeadSeq;
+    // 树是否需要重建
+    private boolean mDirty = true;
+
+    public RangeTracker(IntSeries series) {
+        mSeries = series;
+    }
+
+    /**
+     * 重新遍历mSeries，计算最大/最小值
+     */
+    public void rescan() {
+        int size = mSeries.size();
+        if (size>mCapacity || mCapacity==0) {
+            int capacity = MIN_CAPACITY;
+            while (capacity < size) {
+                capacity <<= 1;
+            }
+            mCapacity = capacity;
+            mMinTree = new int[2*capacity];
+            mMaxTree = new int[2*capacity];
+        }
+        mHeadSeq = 0;
+
+        int capacity = mCapacity;
+        for (int i=0; i<capacity; i++) {
+            if (i < size) {
+                int value = mSeries.get(i);
+                mMinTree[capacity+i] = value;
+                mMaxTree[capacity+i] = value;
+            } else {
+                mMinTree[capacity+i] = Integer.MAX_VALUE;
+                mMaxTree[capacity+i] = Integer.MIN_VALUE;
+            }
+        }
+        for (int node=capacity-1; node>0; node--) {
+            mMinTree[node] = Math.min(mMinTree[2*node], mMinTree[2*node+1]);
+            mMaxTree[node] = Math.max(mMaxTree[2*node], mMaxTree[2*node+1]);
+        }
+        mDirty = false;
+    }
+
+    /**
+     * mSeries的末尾添加了一个数据
+     */
+    public void onAppend() {
+        if (mDirty) {
+            return ;
+        }
+        int size = mSeries.size();
+        if (size > mCapacity) {
+            // 容量翻倍后重建，均摊O(1)
+            rescan();
+            return ;
+        }
+        int value = mSeries.get(size-1);
+        update(leafOf(size-1), value, value);
+    }
+
+    /**
+     * mSeries的第0个数据被移除
+     */
+    public void onRemoveFirst() {
+        if (mDirty) {
+            return ;
+        }
+        update(leafOf(0), Integer.MAX_VALUE, Integer.MIN_VALUE);
+        mHeadSeq++;
+    }
+
+    /**
+     * mSeries中的第index个数据被修改
+     */
+    public void onReplace(int index) {
+        if (mDirty) {
+            return ;
+        }
+        int value = mSeries.get(index);
+        update(leafOf(index), value, value);
+    }
+
+    public boolean isEmpty() {
+        return mSeries.size() == 0;
+    }
+
+    /**
+     * 获取最小值；mSeries为空时抛出IllegalStateException
+     */
+    public int getMin() {
+        ensureScanned();
+        return mMinTree[1];
+    }
+
+    /**
+     * 获取最大值；mSeries为空时抛出IllegalStateException
+     */
+    public int getMax() {
+        ensureScanned();
+        return mMaxTree[1];
+    }
+
+    private void ensureScanned() {
+        if (mDirty) {
+            rescan();
+        }
+        if (mSeries.size() == 0) {
+            throw new IllegalStateException("series is empty");
+        }
+    }
+
+    /**
+     * 第index个数据对应的叶子节点
+     */
+    private int leafOf(int index) {
+        return mCapacity + ((mHeadSeq+index) & (mCapacity-1));
+    }
+
+    /**
+     * 修改叶子节点，并向上更新，直到父节点的值不再变化
+     */
+    private void update(int node, int min, int max) {
+        mMinTree[node] = min;
+        mMaxTree[node] = max;
+        node >>= 1;
+        while (node > 0) {
+            int newMin = Math.min(mMinTree[2*node], mMinTree[2*node+1]);
+            int newMax = Math.max(mMaxTree[2*node], mMaxTree[2*node+1]);
+            if (newMin==mMinTree[node] && newMax==mMaxTree[node]) {
+                break;
+            }
+            mMinTree[node] = newMin;
+            mMaxTree[node] = newMax;
+            node >>= 1;
+        }
+    }
+}
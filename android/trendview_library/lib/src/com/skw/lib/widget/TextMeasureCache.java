@@ -0,0 +1,143 @@
+package com.skw.lib.widget;
+
+import android.graphics.Paint;
+import android.graphics.Paint.FontMetrics;
+import android.graphics.Typeface;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 文本测量结果的缓存(进程内共享)
+ *
+ * 以(字体, 字体大小, 文本)为key，缓存文本的宽度和高度；
+ * 所有TrendView共用同一个缓存，按LRU淘汰，最多保留MAX_ENTRIES项。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public final class TextMeasureCache {
+    private static final int MAX_ENTRIES = 512;
+
+    private static final LinkedHashMap<Key, Entry> sCache =
+        new LinkedHashMap<Key, Entry>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    // 查找时复用的key，避免每次查找都分配对象(只在锁内使用)
+    private static final Key sProbe = new Key();
+    private static final FontMetrics sMetrics = new FontMetrics();
+
+    private static long sHitCount;
+    private static long sMissCount;
+
+    private TextMeasureCache() {
+    }
+
+    /**
+     * 获取文本的宽度
+     */
+    public static float getWidth(Paint paint, String text) {
+        synchronized (sCache) {
+            return lookup(paint, text).width;
+        }
+    }
+
+    /**
+     * 获取文本的高度(FontMetrics.bottom - FontMetrics.top)
+     */
+    public static float getHeight(Paint paint, String text) {
+        synchronized (sCache) {
+            return lookup(paint, text).height;
+        }
+    }
+
+    /**
+     * 命中次数
+     */
+    public static long getHitCount() {
+        synchronized (sCache) {
+            return sHitCount;
+        }
+    }
+
+    /**
+     * 未命中次数
+     */
+    public static long getMissCount() {
+        synchronized (sCache) {
+            return sMissCount;
+        }
+    }
+
+    /**
+     * 清空缓存和计数
+     */
+    public static void clear() {
+        synchronized (sCache) {
+            sCache.clear();
+            sHitCount = 0;
+            sMissCount = 0;
+        }
+    }
+
+    private static Entry lookup(Paint paint, String text) {
+        sProbe.set(paint.getTypeface(), paint.getTextSize(), text);
+        Entry entry = sCache.get(sProbe);
+        if (entry != null) {
+            sHitCount++;
+            return entry;
+        }
+
+        sMissCount++;
+        paint.getFontMetrics(sMetrics);
+        entry = new Entry(paint.measureText(text), sMetrics.bottom - sMetrics.top);
+        Key key = new Key();
+        key.set(paint.getTypeface(), paint.getTextSize(), text);
+        sCache.put(key, entry);
+        return entry;
+    }
+
+    private static class Key {
+        Typeface typeface;
+        float textSize;
+        String text;
+
+        void set(Typeface typeface, float textSize, String text) {
+            this.typeface = typeface;
+            this.textSize = textSize;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)o;
+            return typeface==other.typeface
+                && textSize==other.textSize
+                && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = typeface==null ? 0 : typeface.hashCode();
+            h = 31*h + Float.floatToIntBits(textSize);
+            return 31*h + text.hashCode();
+        }
+    }
+
+    private static class Entry {
+        final float width;
+        final float height;
+
+        Entry(float width, float height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.skw.lib.widget;
+
+/**
+ * 在工作线程中准备好的趋势图数据
+ *
+ * 包含数据本身、最大/最小值、降采样结果以及所有圆心的坐标。
+ * 由setDataAsync()在工作线程中生成，生成之后不再修改；
+ * UI线程在draw()中取出并接管其中的对象。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+final class TrendFrame {
+    // 生成该数据的请求的序号；序号过期的数据会被丢弃
+    final int generation;
+    // 生成时TrendView纵坐标范围和降采样方式的版本
+    final int configVersion;
+
+    final IntSeries data;
+    final RangeTracker range;
+    final int minY;
+    final int maxY;
+
+    // 计算坐标时使用的View大小、内容宽度，以及纵坐标的像素范围[top, bottom]
+    final int width;
+    final int height;
+    final int columns;
+    final int top;
+    final int bottom;
+    // 请求时的可见窗口，以及按新数据限制之后的可见窗口(接管时才写回View)
+    final float requestStart;
+    final float requestCount;
+    final float viewportStart;
+    final float viewportCount;
+
+    // 计算了坐标的数据范围[from, to)，以及横坐标的起点
+    final int from;
+    final int to;
+    final float start;
+    final float itemWidth;
+
+    // 降采样之后每个坐标对应的数据索引(没有降采样时为空)
+    final IntSeries indices;
+    final int pointCount;
+    final float[] circleX;
+    final float[] circleY;
+
+    TrendFrame(int generation, int configVersion, IntSeries data, RangeTracker range, int minY, int maxY,
+            int width, int height, int columns, int top, int bottom, float requestStart, float requestCount,
+            float viewportStart, float viewportCount,
+            int from, int to, float start, float itemWidth,
+            IntSeries indices, int pointCount, float[] circleX, float[] circleY) {
+        this.generation = generation;
+        this.configVersion = configVersion;
+        this.data = data;
+        this.range = range;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.width = width;
+        this.height = height;
+        this.columns = columns;
+        this.top = top;
+        this.bottom = bottom;
+        this.requestStart = requestStart;
+        this.requestCount = requestCount;
+        this.viewportStart = viewportStart;
+        this.viewportCount = viewportCount;
+        this.from = from;
+        this.to = to;
+        this.start = start;
+        this.itemWidth = itemWidth;
+        this.indices = indices;
+        this.pointCount = pointCount;
+        this.circleX = circleX;
+        this.circleY = circleY;
+    }
+}
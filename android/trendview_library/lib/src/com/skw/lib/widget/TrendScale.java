@@ -0,0 +1,211 @@
+package com.skw.lib.widget;
+
+import java.util.Locale;
+
+/**
+ * 纵坐标的比例尺
+ *
+ * (01) 将数值(可以是负数或小数)按浮点比例映射到像素坐标；
+ * (02) 数值范围可以是自动的(数据的最大/最小值)，也可以是固定的；
+ * (03) 生成"好看"的刻度(1、2、5乘以10的幂)及其标签。
+ *
+ * 比例尺只在数据或大小改变时计算一次，绘制时直接使用计算好的坐标。
+ * 不依赖Android，可以直接在JVM上测试。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class TrendScale {
+    // 默认的最多刻度数
+    private static final int DEFAULT_MAX_TICKS = 5;
+
+    // 是否使用固定的数值范围
+    private boolean mFixed = false;
+    private double mFixedMin;
+    private double mFixedMax;
+
+    // 当前使用的数值范围
+    private double mMin;
+    private double mMax;
+    // 数值范围对应的像素范围：mMax对应mTop，mMin对应mBottom
+    private float mTop;
+    private float mBottom;
+    // 每单位数值对应的像素
+    private double mRatio;
+
+    private int mMaxTicks = DEFAULT_MAX_TICKS;
+    private int mTickCount;
+    private double[] mTickValues = new double[DEFAULT_MAX_TICKS+2];
+    private float[] mTickPositions = new float[DEFAULT_MAX_TICKS+2];
+    private String[] mTickLabels = new String[DEFAULT_MAX_TICKS+2];
+
+    public TrendScale() {
+    }
+
+    /**
+     * 复制other的配置(数值范围和刻度数)，不复制计算结果
+     */
+    public TrendScale(TrendScale other) {
+        mFixed = other.mFixed;
+        mFixedMin = other.mFixedMin;
+        mFixedMax = other.mFixedMax;
+        setMaxTicks(other.mMaxTicks);
+    }
+
+    /**
+     * 使用固定的数值范围
+     */
+    public void setFixedRange(double min, double max) {
+        if (!(max > min)) {
+            throw new IllegalArgumentException("max must be greater than min: "+min+", "+max);
+        }
+        mFixed = true;
+        mFixedMin = min;
+        mFixedMax = max;
+    }
+
+    /**
+     * 使用数据的最大/最小值作为数值范围
+     */
+    public void setAutoRange() {
+        mFixed = false;
+    }
+
+    public boolean isFixedRange() {
+        return mFixed;
+    }
+
+    /**
+     * 设置最多的刻度数
+     */
+    public void setMaxTicks(int maxTicks) {
+        mMaxTicks = Math.max(maxTicks, 2);
+        mTickValues = new double[mMaxTicks+2];
+        mTickPositions = new float[mMaxTicks+2];
+        mTickLabels = new String[mMaxTicks+2];
+    }
+
+    /**
+     * 重新计算比例尺和刻度
+     *
+     * @param dataMin 数据的最小值(自动范围时使用)
+     * @param dataMax 数据的最大值(自动范围时使用)
+     * @param top     最大值对应的像素坐标
+     * @param bottom  最小值对应的像素坐标
+     */
+    public void update(double dataMin, double dataMax, float top, float bottom) {
+        if (mFixed) {
+            mMin = mFixedMin;
+            mMax = mFixedMax;
+        } else if (dataMax > dataMin) {
+            mMin = dataMin;
+            mMax = dataMax;
+        } else {
+            // 所有数据都相等：让数据显示在中间
+            mMin = dataMin - 1;
+            mMax = dataMax + 1;
+        }
+        mTop = top;
+        mBottom = bottom;
+        mRatio = (bottom - top) / (mMax - mMin);
+
+        updateTicks();
+    }
+
+    /**
+     * 数值对应的像素坐标
+     */
+    public float project(double value) {
+        return (float)(mTop + (mMax - value) * mRatio);
+    }
+
+    public double getMin() {
+        return mMin;
+    }
+
+    public double getMax() {
+        return mMax;
+    }
+
+    public int getTickCount() {
+        return mTickCount;
+    }
+
+    public double getTickValue(int i) {
+        return mTickValues[i];
+    }
+
+    public float getTickPosition(int i) {
+        return mTickPositions[i];
+    }
+
+    public String getTickLabel(int i) {
+        return mTickLabels[i];
+    }
+
+    /**
+     * 在[mMin, mMax]中生成刻度
+     */
+    private void updateTicks() {
+        mTickCount = 0;
+        double step = niceNumber((mMax - mMin) / (mMaxTicks - 1), true);
+        if (!(step > 0)) {
+            return ;
+        }
+
+        // 标签保留的小数位数
+        int decimals = Math.max(0, -(int)Math.floor(Math.log10(step)));
+        double first = Math.ceil(mMin / step) * step;
+        for (double value=first; value<=mMax+step*1e-9 && mTickCount<mTickValues.length; value+=step) {
+            // 消除累加误差，并避免出现"-0"
+            double tick = Math.round(value / step) * step + 0.0;
+            mTickValues[mTickCount] = tick;
+            mTickPositions[mTickCount] = project(tick);
+            mTickLabels[mTickCount] = formatTick(tick, decimals);
+            mTickCount++;
+        }
+    }
+
+    private static String formatTick(double value, int decimals) {
+        if (decimals == 0) {
+            return String.valueOf(Math.round(value));
+        }
+        return String.format(Locale.US, "%." + decimals + "f", value);
+    }
+
+    /**
+     * 与range最接近的"好看"的数(1、2、5乘以10的幂)
+     *
+     * @param round true表示四舍五入，false表示向上取
+     */
+    public static double niceNumber(double range, boolean round) {
+        if (!(range > 0)) {
+            return 0;
+        }
+        double exponent = Math.floor(Math.log10(range));
+        double fraction = range / Math.pow(10, exponent);
+        double nice;
+        if (round) {
+            if (fraction < 1.5) {
+                nice = 1;
+            } else if (fraction < 3) {
+                nice = 2;
+            } else if (fraction < 7) {
+                nice = 5;
+            } else {
+                nice = 10;
+            }
+        } else {
+            if (fraction <= 1) {
+                nice = 1;
+            } else if (fraction <= 2) {
+                nice = 2;
+            } else if (fraction <= 5) {
+                nice = 5;
+            } else {
+                nice = 10;
+            }
+        }
+        return nice * Math.pow(10, exponent);
+    }
+}
@@ -6,25 +6,30 @@ import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
-import android.graphics.Path;
 import android.graphics.Paint;
-import android.graphics.Paint.FontMetrics;
 import android.graphics.Paint.Style;
-import android.graphics.Point;
-import android.graphics.Region;
 import android.text.SpannableString;   
 import android.text.Spanned;
 import android.text.style.SuperscriptSpan;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
 import android.widget.ImageView;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.Log;
 
+import com.skw.java.metrics.WidgetMetrics;
+
 import java.util.Arrays;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 温度趋势图
@@ -55,10 +60,17 @@ public class TrendView extends View {
 
     private static final int FONT_COLOR          = 0xff97c6ae;
     private static final int CIRCLE_COLOR_NORMAL = 0xff63bf91;
+    // 坐标轴刻度线的颜色
+    private static final int AXIS_COLOR          = 0x3397c6ae;
 
     private static final int DEFAULT_MIN_Y = 0;
     private static final int DEFAULT_MAX_Y = 100;
 
+    // 可见窗口中最少的数据个数
+    private static final int MIN_VIEWPORT_COUNT = 2;
+    // 可见窗口两侧额外计算坐标的数据个数
+    private static final int VIEWPORT_MARGIN = 2;
+
     private int mFontDirection = DIRECTION_UP;
 
     private int mMinY = DEFAULT_MIN_Y;
@@ -81,17 +93,105 @@ public class TrendView extends View {
 
     private int mIndex = 0;
 
-    // 所有圆圈的路径
-    private Path mCirclePath = new Path();
+    // 所有线段的端点(x0,y0,x1,y1,...)，用于Canvas.drawLines()批量绘制
+    private float[] mLines = new float[64];
+    // mLines中有效的float个数
+    private int mLineCount = 0;
 
     // 数据的数值
-    private ArrayList<Integer> mDataList = new ArrayList<Integer>();
+    private IntSeries mData = new IntSeries();
+    // 数据的最大/最小值
+    private RangeTracker mRange = new RangeTracker(mData);
+    // 坐标的个数
+    private int mPointCount = 0;
+    // 数据的数值所在圆圈的坐标
+    private float[] mCircleX = new float[16];
+    private float[] mCircleY = new float[16];
     // 数据的坐标
-    private ArrayList<Point> mFontPositions = new ArrayList<Point>();
+    private float[] mFontX = new float[16];
+    private float[] mFontY = new float[16];
     // 数据的上标的坐标
-    private ArrayList<Point> mUpperPositions = new ArrayList<Point>();
-    // 数据的数值所在圆圈的坐标
-    private ArrayList<Point> mCirclePositions = new ArrayList<Point>();
+    private float[] mUpperX = new float[16];
+    private float[] mUpperY = new float[16];
+    // 每个坐标对应的标签(布局时从mLabelCache中取出，draw()中直接使用)
+    private String[] mLabels = new String[16];
+    // 数据标签及其宽度的缓存
+    private LabelCache mLabelCache = new LabelCache();
+    // 是否使用字形图集绘制标签
+    private boolean mLabelAtlasEnabled = false;
+    // 字形图集(mLabelAtlasEnabled为false时是null)
+    private LabelAtlas mLabelAtlas;
+
+    // 是否将静态内容(线段、圆环、文字)缓存到Bitmap中
+    private boolean mRenderCacheEnabled = false;
+    // 静态内容的缓存
+    private Bitmap mCacheBitmap;
+    private Canvas mCacheCanvas;
+    // 缓存是否有效
+    private boolean mCacheValid = false;
+
+    // 其他数据序列(与主数据共用横坐标、纵坐标范围和选中项)
+    private ArrayList<Series> mSeries = new ArrayList<Series>();
+
+    // 环形缓冲区的容量(0表示不限制数据个数)
+    private int mCapacity = 0;
+
+    // 降采样(null表示不进行降采样)
+    private Downsampler mDownsampler = new LttbDownsampler();
+    // 是否进行了降采样
+    private boolean mDownsampled = false;
+    // 降采样之后，每个坐标对应的原始数据的索引
+    private IntSeries mLayoutIndices = new IntSeries();
+
+    // 可见窗口的起始位置和数据个数(mViewportCount为0表示显示所有数据)
+    private float mViewportStart = 0;
+    private float mViewportCount = 0;
+    // 是否启用选择/平移/缩放手势(默认不启用，保持普通View的点击、长按行为)
+    private boolean mGesturesEnabled = false;
+    // 当前这次触摸是否已被平移/缩放/拖动选择消费(此后不再交给View处理点击和长按)
+    private boolean mGestureConsumed = false;
+    private GestureDetector mGestureDetector;
+    private ScaleGestureDetector mScaleDetector;
+
+    // 纵坐标的比例尺
+    private TrendScale mScale = new TrendScale();
+    // 是否绘制坐标轴刻度
+    private boolean mAxisEnabled = false;
+    // 刻度线的端点
+    private float[] mAxisLines = new float[0];
+
+    // 坐标是否有效
+    private boolean mLayoutValid = false;
+    // 计算坐标时复用的数据范围
+    private Window mWindow = new Window();
+
+    // 数据请求的序号：每次修改数据都会递增，用于丢弃过期的异步结果
+    private final AtomicInteger mGeneration = new AtomicInteger();
+    // 工作线程准备好、等待UI线程接管的数据
+    private final AtomicReference<TrendFrame> mPendingFrame = new AtomicReference<TrendFrame>();
+    // 纵坐标范围或降采样方式的版本：每次修改都会递增，异步结果的版本不一致时重新计算坐标
+    private int mLayoutConfigVersion;
+
+    // 所有TrendView共用的工作线程
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "TrendView-worker");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    // 计算了坐标的数据范围[mLayoutFrom, mLayoutTo)
+    private int mLayoutFrom;
+    private int mLayoutTo;
+    // 横坐标的起点(第mLayoutStart个数据位于最左侧)
+    private float mLayoutStart;
+    // 计算坐标时使用的参数
+    private float mItemWidth;
+    private int mLayoutMinY;
+    private int mLayoutMaxY;
+    private int mTextHeight;
+    private int mUpperHeight;
 
     // 线段的Paint
     private Paint mLinePaint;
@@ -102,6 +202,17 @@ public class TrendView extends View {
     private Paint mFontPaint;
     // 字体数据的Paint
     private Paint mUpperPaint;
+    // 坐标轴的Paint
+    private Paint mAxisPaint;
+
+    private OnPointSelectedListener mPointSelectedListener;
+    // 耗时统计(null表示不统计)
+    private WidgetMetrics mMetrics;
+
+    // 通过触摸选中数据点的监听接口
+    public interface OnPointSelectedListener {
+        public void onSelected(int index, int value);
+    }
 
     public TrendView(Context context) {
         this(context, null);
@@ -112,6 +223,7 @@ public class TrendView extends View {
 
         TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.TrendView);
         mFontDirection = a.getInt(R.styleable.TrendView_font_direction, DIRECTION_UP);
+        mGesturesEnabled = a.getBoolean(R.styleable.TrendView_gestures_enabled, false);
         a.recycle();
 
         init();
@@ -153,6 +265,15 @@ public class TrendView extends View {
         mUpperPaint.setTextSize(mUpperSize);
         mUpperPaint.setColor(FONT_COLOR);
 
+        mAxisPaint = new Paint();
+        mAxisPaint.setAntiAlias(true);
+        mAxisPaint.setStrokeWidth(1);
+        mAxisPaint.setTextSize(mUpperSize);
+        mAxisPaint.setColor(AXIS_COLOR);
+
+        mGestureDetector = new GestureDetector(context, mGestureListener);
+        mScaleDetector = new ScaleGestureDetector(context, mScaleListener);
+
         setOffset();
     }
 
@@ -162,15 +283,22 @@ public class TrendView extends View {
     }
 
     private void setOffset() {
-        if (mFontDirection == DIRECTION_DOWN) {
-            mTopOffset = mRadius + mStrokeWidth;
-            mBottomOffset = (int)Math.ceil(getFontHeight(mFontPaint)) 
-                + mRadius + mStrokeWidth;
-        } else {
-            mTopOffset = (int)Math.ceil(getFontHeight(mFontPaint)) 
-                + (int)Math.ceil(getFontHeight(mUpperPaint, TEMPERATURE_UPPER))/2 
-                + mRadius + mStrokeWidth;
-            mBottomOffset = mRadius + mStrokeWidth;
+        // 多条数据序列时，字体可能同时显示在圆圈的上面和下面
+        boolean up = (mFontDirection == DIRECTION_UP);
+        boolean down = (mFontDirection == DIRECTION_DOWN);
+        for (int i=0; i<mSeries.size(); i++) {
+            up |= (mSeries.get(i).direction == DIRECTION_UP);
+            down |= (mSeries.get(i).direction == DIRECTION_DOWN);
+        }
+
+        mTopOffset = mRadius + mStrokeWidth;
+        mBottomOffset = mRadius + mStrokeWidth;
+        if (up) {
+            mTopOffset += (int)Math.ceil(getFontHeight(mFontPaint)) 
+                + (int)Math.ceil(getFontHeight(mUpperPaint, TEMPERATURE_UPPER))/2;
+        }
+        if (down) {
+            mBottomOffset += (int)Math.ceil(getFontHeight(mFontPaint));
         }
     }
 
@@ -184,42 +312,702 @@ public class TrendView extends View {
         mFontDirection = (direction==DIRECTION_DOWN) 
             ? DIRECTION_DOWN : DIRECTION_UP;
         setOffset();
+        invalidateRenderCache();
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * 设置是否缓存静态内容
+     *
+     * 开启后，线段、圆环和文字只在数据、字体位置或大小改变时绘制一次到Bitmap中；
+     * 之后每一帧只绘制缓存的Bitmap和选中项的实心圆。
+     */
+    public void setRenderCacheEnabled(boolean enabled) {
+        mRenderCacheEnabled = enabled;
+        if (!enabled) {
+            releaseRenderCache();
+        }
+        invalidateRenderCache();
+        invalidate();
+    }
+
+    /**
+     * 静态内容发生了变化
+     */
+    private void invalidateRenderCache() {
+        mCacheValid = false;
+    }
+
+    private void releaseRenderCache() {
+        if (mCacheBitmap != null) {
+            mCacheBitmap.recycle();
+            mCacheBitmap = null;
+            mCacheCanvas = null;
+        }
+        mCacheValid = false;
+    }
+
+    /**
+     * 设置耗时统计
+     *
+     * 开启后，onLayout()、draw()、setData()/append()和拖动平移的耗时会被记录到metrics中；
+     * 传入null则关闭统计。
+     */
+    public void setMetrics(WidgetMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    public WidgetMetrics getMetrics() {
+        return mMetrics;
     }
 
     /**
      * 设置数据
      */
     public void setData(int[] array) {
-        ArrayList<Integer> list = new ArrayList<Integer>();
-        for (int value:array) {
-            list.add(value);
+        long start = mMetrics!=null ? System.nanoTime() : 0;
+        mData.setAll(array);
+        onDataChanged();
+        if (mMetrics != null) {
+            mMetrics.record(WidgetMetrics.OP_SET_DATA, System.nanoTime()-start);
         }
-
-        setData(list);
     }
 
+    /**
+     * 设置数据(兼容旧接口，内部同样保存在IntSeries中)
+     */
     public void setData(ArrayList<Integer> list) {
-        mDataList = (ArrayList<Integer>)list.clone();
+        long start = mMetrics!=null ? System.nanoTime() : 0;
+        mData.setAll(list);
+        onDataChanged();
+        if (mMetrics != null) {
+            mMetrics.record(WidgetMetrics.OP_SET_DATA, System.nanoTime()-start);
+        }
+    }
+
+    /**
+     * 设置环形缓冲区的容量
+     *
+     * capacity>0时，数据最多保留capacity个，超出时丢弃最早的数据；
+     * 并且横坐标按capacity个位置等分，append()时已有的点只需要平移。
+     * capacity<=0时，不限制数据个数。
+     */
+    public void setCapacity(int capacity) {
+        cancelPendingData();
+        mCapacity = capacity>0 ? capacity : 0;
+        if (trimToCapacity()) {
+            mRange.rescan();
+        }
+        updateRange();
+        clampViewport();
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * 设置降采样的方式
+     *
+     * 当数据个数多于可显示的像素列数时，用downsampler挑选出约每列一个点进行绘制；
+     * 原始数据仍然保留。downsampler为null时不进行降采样。
+     */
+    public void setDownsampler(Downsampler downsampler) {
+        mDownsampler = downsampler;
+        mLayoutConfigVersion++;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * 设置是否使用字形图集绘制标签
+     *
+     * 开启后，数字、负号和上标只会被光栅化一次到共享的Bitmap中，
+     * draw()中直接从Bitmap拷贝字形，而不是每个点调用两次drawText()。
+     * 适合数据点较多的趋势图。
+     */
+    public void setLabelAtlasEnabled(boolean enabled) {
+        mLabelAtlasEnabled = enabled;
+        updateLabelAtlas();
+        invalidateRenderCache();
+        invalidate();
+    }
+
+    /**
+     * 字体大小或颜色改变时，重新获取图集
+     */
+    private void updateLabelAtlas() {
+        if (!mLabelAtlasEnabled) {
+            mLabelAtlas = null;
+        } else if (mLabelAtlas==null || !mLabelAtlas.matches(mFontPaint, mUpperPaint)) {
+            mLabelAtlas = LabelAtlas.obtain(mFontPaint, mUpperPaint, TEMPERATURE_UPPER);
+        }
+    }
 
-        // 获取最大/最小值
-        ArrayList<Integer> tmpList = (ArrayList<Integer>)list.clone();
-        Collections.sort(tmpList);
-        mMinY = tmpList.get(0);
-        mMaxY = tmpList.get(tmpList.size()-1);
+    /**
+     * 使用固定的纵坐标范围(可以是负数或小数)
+     */
+    public void setYRange(float min, float max) {
+        mScale.setFixedRange(min, max);
+        mLayoutConfigVersion++;
         requestLayout();
         invalidate();
     }
 
+    /**
+     * 使用数据的最大/最小值作为纵坐标范围(默认)
+     */
+    public void setAutoYRange() {
+        mScale.setAutoRange();
+        mLayoutConfigVersion++;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * 设置是否绘制纵坐标的刻度线和刻度值
+     */
+    public void setAxisEnabled(boolean enabled) {
+        mAxisEnabled = enabled;
+        invalidateRenderCache();
+        invalidate();
+    }
+
+    /**
+     * 计算刻度线的端点
+     */
+    private void buildAxisLines() {
+        int count = mScale.getTickCount() * 4;
+        if (count > mAxisLines.length) {
+            mAxisLines = new float[count];
+        }
+
+        int left = getPaddingLeft();
+        int right = getMeasuredWidth() - getPaddingRight();
+        for (int i=0; i<mScale.getTickCount(); i++) {
+            float y = mScale.getTickPosition(i);
+            mAxisLines[i*4] = left;
+            mAxisLines[i*4+1] = y;
+            mAxisLines[i*4+2] = right;
+            mAxisLines[i*4+3] = y;
+        }
+    }
+
+    /**
+     * 设置可见窗口
+     *
+     * 只有窗口内(及两侧少量)的数据会计算坐标并绘制，
+     * 因此计算和绘制的开销只与可见的数据个数有关，与数据总数无关。
+     *
+     * @param startIndex 窗口中第一个数据的索引
+     * @param count      窗口中数据的个数；count<=0或不小于数据总数时，显示所有数据
+     */
+    public void setViewport(int startIndex, int count) {
+        mViewportStart = startIndex;
+        mViewportCount = count>0 ? count : 0;
+        onViewportChanged();
+    }
+
+    /**
+     * 获取可见窗口中第一个数据的索引
+     */
+    public int getViewportStart() {
+        return (int)mViewportStart;
+    }
+
+    /**
+     * 获取可见窗口中数据的个数
+     */
+    public int getViewportCount() {
+        return isViewportEnabled() ? (int)Math.ceil(mViewportCount) : mData.size();
+    }
+
+    /**
+     * 设置是否启用选择(单击)、平移(单指拖动)和缩放(双指捏合)手势，默认不启用
+     *
+     * 启用后，单击仍会触发OnClickListener，按下和长按也照常处理；
+     * 只有开始拖动或缩放之后，这次触摸才不再作为点击/长按。
+     */
+    public void setGesturesEnabled(boolean enabled) {
+        mGesturesEnabled = enabled;
+    }
+
+    private boolean isViewportEnabled() {
+        return mViewportCount > 0;
+    }
+
+    private void onViewportChanged() {
+        clampViewport();
+        layoutPoints();
+        invalidate();
+    }
+
+    /**
+     * 将可见窗口限制在数据范围之内
+     */
+    private void clampViewport() {
+        clampViewport(mData.size());
+    }
+
+    private void clampViewport(int size) {
+        if (!isViewportEnabled()) {
+            return ;
+        }
+        float count = clampViewportCount(mViewportCount, size);
+        mViewportStart = clampViewportStart(mViewportStart, count, size);
+        mViewportCount = count;
+    }
+
+    /**
+     * size个数据时可见窗口的大小；0表示显示全部数据
+     */
+    private static float clampViewportCount(float count, int size) {
+        if (count<=0 || count>=size) {
+            return 0;
+        }
+        return Math.max(count, MIN_VIEWPORT_COUNT);
+    }
+
+    /**
+     * size个数据、可见窗口大小为count(已经过clampViewportCount())时，可见窗口的起点
+     */
+    private static float clampViewportStart(float start, float count, int size) {
+        if (count <= 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(start, size-count));
+    }
+
+    /**
+     * 计算size个数据时，需要计算坐标的数据范围
+     */
+    private Window computeWindow(int size, Window window) {
+        return computeWindow(size, mViewportStart, mViewportCount, window);
+    }
+
+    /**
+     * 计算size个数据、可见窗口为[viewportStart, viewportStart+viewportCount)时，需要计算坐标的数据范围
+     */
+    private Window computeWindow(int size, float viewportStart, float viewportCount, Window window) {
+        if (viewportCount > 0) {
+            // 只计算可见窗口(及两侧少量)的数据
+            window.slots = viewportCount;
+            window.start = viewportStart;
+            window.from = Math.max(0, (int)viewportStart - VIEWPORT_MARGIN);
+            window.to = Math.min(size, (int)Math.ceil(viewportStart+viewportCount) + VIEWPORT_MARGIN);
+        } else {
+            // 环形缓冲区模式下，按容量等分横坐标
+            window.slots = Math.max(mCapacity, size);
+            window.start = 0;
+            window.from = 0;
+            window.to = size;
+        }
+        return window;
+    }
+
+    /**
+     * 需要计算坐标的数据范围[from, to)
+     */
+    private static class Window {
+        // 横坐标等分的份数
+        float slots;
+        // 横坐标的起点
+        float start;
+        int from;
+        int to;
+    }
+
+    /**
+     * 在末尾追加一个数据(适用于实时数据)
+     *
+     * 若最大/最小值没有变化，只平移已有的坐标并计算新数据的坐标；
+     * 否则重新计算所有坐标。
+     */
+    public void append(int value) {
+        long start = mMetrics!=null ? System.nanoTime() : 0;
+        cancelPendingData();
+        boolean evicted = false;
+        if (mCapacity>0 && mData.size()>=mCapacity) {
+            mData.removeFirst();
+            mRange.onRemoveFirst();
+            evicted = true;
+        }
+        mData.add(value);
+        mRange.onAppend();
+        updateRange();
+
+        if (mLayoutValid && !mDownsampled && !needDownsample(mData.size()) && !isViewportEnabled() && mSeries.isEmpty()
+                && mCapacity>0 && (mScale.isFixedRange() || (mMinY==mLayoutMinY && mMaxY==mLayoutMaxY))) {
+            appendPoint(evicted);
+        } else {
+            clampViewport();
+            layoutPoints();
+        }
+        invalidate();
+        if (mMetrics != null) {
+            mMetrics.record(WidgetMetrics.OP_SET_DATA, System.nanoTime()-start);
+        }
+    }
+
+    /**
+     * 修改第index个数据(适用于修正已显示的数据)
+     *
+     * 最大/最小值的更新是O(log n)的，不需要重新遍历所有数据。
+     */
+    public void setValue(int index, int value) {
+        if (index<0 || index>=mData.size()) {
+            return ;
+        }
+        long start = mMetrics!=null ? System.nanoTime() : 0;
+        cancelPendingData();
+        mData.set(index, value);
+        mRange.onReplace(index);
+        updateRange();
+        layoutPoints();
+        invalidate();
+        if (mMetrics != null) {
+            mMetrics.record(WidgetMetrics.OP_SET_DATA, System.nanoTime()-start);
+        }
+    }
+
+    /**
+     * 丢弃超出容量的最早的数据
+     *
+     * @return 是否有数据被丢弃
+     */
+    private boolean trimToCapacity() {
+        boolean trimmed = false;
+        while (mCapacity>0 && mData.size()>mCapacity) {
+            mData.removeFirst();
+            trimmed = true;
+        }
+        return trimmed;
+    }
+
+    /**
+     * 在工作线程中设置数据
+     *
+     * 最大/最小值、降采样和坐标计算都在工作线程中完成，结果通过一个不可变的快照
+     * 原子地交给UI线程，然后postInvalidate()。若在结果返回之前又修改了数据
+     * (再次调用setDataAsync()、setData()或append()等)，该结果会被直接丢弃。
+     */
+    public void setDataAsync(int[] array) {
+        cancelPendingData();
+        final int generation = mGeneration.get();
+
+        // 在UI线程中复制数据，并记录计算坐标需要的参数
+        int from = Math.max(0, mCapacity>0 ? array.length-mCapacity : 0);
+        final int[] values = Arrays.copyOfRange(array, from, array.length);
+        // 可见窗口只在副本上限制：结果被丢弃时(例如之后又调用了setData())，mViewportXxx保持不变
+        final float requestStart = mViewportStart;
+        final float requestCount = mViewportCount;
+        final float viewportCount = clampViewportCount(requestCount, values.length);
+        final float viewportStart = isViewportEnabled()
+                ? clampViewportStart(requestStart, viewportCount, values.length) : requestStart;
+        final Window window = computeWindow(values.length, viewportStart, viewportCount, new Window());
+        // 比例尺的配置只复制给工作线程使用，接管时不会覆盖mScale
+        final TrendScale scale = new TrendScale(mScale);
+        final Downsampler downsampler = mDownsampler;
+        final int configVersion = mLayoutConfigVersion;
+        final int width = getMeasuredWidth();
+        final int height = getMeasuredHeight();
+        final int columns = getContentWidth();
+        final int top = getPaddingTop() + mTopOffset;
+        final int bottom = height - getPaddingBottom() - mBottomOffset;
+        // 其他数据序列的最大/最小值(在UI线程中获取)
+        boolean hasSeries = false;
+        int seriesMinY = Integer.MAX_VALUE;
+        int seriesMaxY = Integer.MIN_VALUE;
+        for (int i=0; i<mSeries.size(); i++) {
+            RangeTracker range = mSeries.get(i).range;
+            if (!range.isEmpty()) {
+                hasSeries = true;
+                seriesMinY = Math.min(seriesMinY, range.getMin());
+                seriesMaxY = Math.max(seriesMaxY, range.getMax());
+            }
+        }
+        final boolean combine = hasSeries;
+        final int combineMinY = seriesMinY;
+        final int combineMaxY = seriesMaxY;
+
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                IntSeries data = new IntSeries(values.length);
+                data.setAll(values);
+                RangeTracker range = new RangeTracker(data);
+                range.rescan();
+                int minY = range.isEmpty() ? DEFAULT_MIN_Y : range.getMin();
+                int maxY = range.isEmpty() ? DEFAULT_MAX_Y : range.getMax();
+                if (combine && !range.isEmpty()) {
+                    minY = Math.min(minY, combineMinY);
+                    maxY = Math.max(maxY, combineMaxY);
+                }
+                if (mGeneration.get() != generation) {
+                    return ;
+                }
+
+                scale.update(minY, maxY, top, bottom);
+                float itemWidth = (float)columns / window.slots;
+                IntSeries indices = new IntSeries();
+                float[] circleX = new float[Math.max(window.to-window.from, 1)];
+                float[] circleY = new float[circleX.length];
+                int count = data.size()==0 ? 0 : projectCircles(data, window.from, window.to, window.start,
+                        itemWidth, downsampler, columns, scale, indices, circleX, circleY);
+
+                TrendFrame frame = new TrendFrame(generation, configVersion, data, range, minY, maxY,
+                        width, height, columns, top, bottom, requestStart, requestCount, viewportStart, viewportCount,
+                        window.from, window.to, window.start, itemWidth,
+                        indices, count, circleX, circleY);
+                if (mGeneration.get() == generation) {
+                    mPendingFrame.set(frame);
+                    postInvalidate();
+                }
+            }
+        });
+    }
+
+    /**
+     * 丢弃还没有被接管的异步数据
+     */
+    private void cancelPendingData() {
+        mGeneration.incrementAndGet();
+        mPendingFrame.set(null);
+    }
+
+    /**
+     * 接管工作线程准备好的数据(只在UI线程中调用)
+     */
+    private void applyPendingFrame() {
+        TrendFrame frame = mPendingFrame.getAndSet(null);
+        if (frame==null || frame.generation!=mGeneration.get()) {
+            return ;
+        }
+
+        mData = frame.data;
+        mRange = frame.range;
+        mMinY = frame.minY;
+        mMaxY = frame.maxY;
+        if (frame.configVersion!=mLayoutConfigVersion
+                || frame.width!=getMeasuredWidth() || frame.height!=getMeasuredHeight()
+                || frame.columns!=getContentWidth()
+                || frame.top!=getPaddingTop()+mTopOffset
+                || frame.bottom!=getMeasuredHeight()-getPaddingBottom()-mBottomOffset
+                || frame.requestStart!=mViewportStart || frame.requestCount!=mViewportCount) {
+            // 计算期间View的大小、内边距、字体位置、纵坐标范围、降采样方式或可见窗口发生了变化
+            clampViewport();
+            layoutPoints();
+            return ;
+        }
+
+        // 配置没有变化：mScale按相同的参数重新计算，结果与工作线程中的一致
+        mScale.update(frame.minY, frame.maxY, frame.top, frame.bottom);
+
+        mViewportStart = frame.viewportStart;
+        mViewportCount = frame.viewportCount;
+
+        mLayoutStart = frame.start;
+        mLayoutFrom = frame.from;
+        mLayoutTo = frame.to;
+        mLayoutMinY = frame.minY;
+        mLayoutMaxY = frame.maxY;
+        mItemWidth = frame.itemWidth;
+        mLayoutIndices = frame.indices;
+        mDownsampled = mLayoutIndices.size() > 0;
+        ensurePointCapacity(frame.pointCount);
+        System.arraycopy(frame.circleX, 0, mCircleX, 0, frame.pointCount);
+        System.arraycopy(frame.circleY, 0, mCircleY, 0, frame.pointCount);
+        mPointCount = frame.pointCount;
+        layoutLabels();
+    }
+
+    /**
+     * 添加一条数据序列
+     *
+     * 新的序列与主数据(setData()设置的数据)共用横坐标、最大/最小值和选中项，
+     * 在同一次布局中计算坐标、在同一次draw()中绘制。
+     * 第i个数据对应主数据的第i个数据；超出主数据长度的部分不显示。
+     *
+     * @param color     线段和圆圈的颜色
+     * @param direction 字体的位置，DIRECTION_UP或DIRECTION_DOWN
+     */
+    public void addSeries(int[] array, int color, int direction) {
+        Series series = new Series(color, mStrokeWidth);
+        series.direction = (direction==DIRECTION_DOWN) ? DIRECTION_DOWN : DIRECTION_UP;
+        series.data.setAll(array);
+        series.range.rescan();
+        mSeries.add(series);
+
+        setOffset();
+        onDataChanged();
+    }
+
+    /**
+     * 移除所有通过addSeries()添加的数据序列
+     */
+    public void clearSeries() {
+        mSeries.clear();
+        setOffset();
+        onDataChanged();
+    }
+
+    /**
+     * 数据序列的个数(包括主数据)
+     */
+    public int getSeriesCount() {
+        return mSeries.size() + 1;
+    }
+
+    private void onDataChanged() {
+        cancelPendingData();
+        trimToCapacity();
+        // 获取最大/最小值(单次遍历)
+        mRange.rescan();
+        updateRange();
+        clampViewport();
+        requestLayout();
+        invalidate();
+    }
+
+    private void updateRange() {
+        if (mRange.isEmpty()) {
+            mMinY = DEFAULT_MIN_Y;
+            mMaxY = DEFAULT_MAX_Y;
+        } else {
+            mMinY = mRange.getMin();
+            mMaxY = mRange.getMax();
+        }
+
+        // 所有序列共用一个最大/最小值
+        for (int i=0; i<mSeries.size(); i++) {
+            RangeTracker range = mSeries.get(i).range;
+            if (!range.isEmpty() && !mRange.isEmpty()) {
+                mMinY = Math.min(mMinY, range.getMin());
+                mMaxY = Math.max(mMaxY, range.getMax());
+            }
+        }
+    }
+
     /**
      * 设置当前选项
      */
     public void setCurrentIndex(int index) {
-        if (mIndex==index && index<0 || index>mDataList.size()-1) {
+        if (index<0 || index>mData.size()-1 || mIndex==index) {
             return ;
         }
 
+        // 只重绘新旧两个选中的圆
+        int oldIndex = mIndex;
         mIndex = index;
-        invalidate();
+        invalidatePoint(oldIndex);
+        invalidatePoint(index);
+    }
+
+    /**
+     * 获取当前选项
+     */
+    public int getCurrentIndex() {
+        return mIndex;
+    }
+
+    /**
+     * 设置触摸选中数据点的监听接口
+     */
+    public void setOnPointSelectedListener(OnPointSelectedListener listener) {
+        mPointSelectedListener = listener;
+    }
+
+    /**
+     * 选中离横坐标x最近的数据点
+     */
+    private void selectPointAt(float x) {
+        int slot = findNearestSlot(x);
+        if (slot < 0) {
+            return ;
+        }
+
+        int index = getDataIndex(slot);
+        if (index != mIndex) {
+            setCurrentIndex(index);
+            if (mPointSelectedListener != null) {
+                mPointSelectedListener.onSelected(index, mData.get(index));
+            }
+        }
+    }
+
+    /**
+     * 二分查找离横坐标x最近的坐标(mCircleX是升序的)
+     *
+     * @return 坐标的位置；没有坐标时返回-1
+     */
+    private int findNearestSlot(float x) {
+        if (mPointCount == 0) {
+            return -1;
+        }
+
+        int low = 0;
+        int high = mPointCount - 1;
+        while (low < high) {
+            int mid = (low+high) >>> 1;
+            if (mCircleX[mid] < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        // low是第一个不小于x的坐标，再与它左边的坐标比较
+        if (low>0 && x-mCircleX[low-1] <= mCircleX[low]-x) {
+            return low - 1;
+        }
+        return low;
+    }
+
+    /**
+     * 第index个数据对应的坐标的位置
+     *
+     * @return 坐标的位置；该数据没有计算坐标时返回-1
+     */
+    private int findSlot(int index) {
+        if (!mDownsampled) {
+            return (index>=mLayoutFrom && index<mLayoutFrom+mPointCount) ? index-mLayoutFrom : -1;
+        }
+
+        int low = 0;
+        int high = mPointCount - 1;
+        while (low <= high) {
+            int mid = (low+high) >>> 1;
+            int value = mLayoutIndices.get(mid);
+            if (value < index) {
+                low = mid + 1;
+            } else if (value > index) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 重绘第index个数据的圆所在的区域
+     */
+    private void invalidatePoint(int index) {
+        int slot = findSlot(index);
+        if (slot < 0) {
+            return ;
+        }
+
+        int size = mRadius + mStrokeWidth;
+        int x = (int)mCircleX[slot];
+        int y = (int)mCircleY[slot];
+        invalidate(x-size, y-size, x+size+1, y+size+1);
+        for (int s=0; s<mSeries.size(); s++) {
+            Series series = mSeries.get(s);
+            if (slot < series.pointCount) {
+                y = (int)series.circleY[slot];
+                invalidate(x-size, y-size, x+size+1, y+size+1);
+            }
+        }
     }
 
     @Override
@@ -230,76 +1018,554 @@ public class TrendView extends View {
     @Override
     public void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
-        if (mDataList.size()==0 || mMaxY<=mMinY) {
+        long start = mMetrics!=null ? System.nanoTime() : 0;
+        layoutPoints();
+        if (mMetrics != null) {
+            mMetrics.record(WidgetMetrics.OP_LAYOUT, System.nanoTime()-start);
+        }
+    }
+
+    /**
+     * 计算所有数据的坐标
+     */
+    private void layoutPoints() {
+        mLayoutValid = false;
+        mDownsampled = false;
+        mPointCount = 0;
+        mLineCount = 0;
+        if (mData.size()==0) {
+            // 没有数据时也要丢弃缓存的内容，否则会继续绘制旧的趋势图
+            invalidateRenderCache();
             return ;
         }
         int tOffset = getPaddingTop() + mTopOffset;             // 顶部偏移
         int bOffset = getPaddingBottom() + mBottomOffset;       // 底部偏移
-        int yRatio = (getMeasuredHeight() - (tOffset+bOffset)) / (mMaxY - mMinY);
-        int itemWidth = (getMeasuredWidth() - getPaddingLeft() - getPaddingRight()) / mDataList.size();
-        FontMetrics textMetrics = mFontPaint.getFontMetrics();
+        Window window = computeWindow(mData.size(), mWindow);
+        mLayoutStart = window.start;
+        mLayoutFrom = window.from;
+        mLayoutTo = window.to;
+        mLayoutMinY = mMinY;
+        mLayoutMaxY = mMaxY;
+        mScale.update(mMinY, mMaxY, tOffset, getMeasuredHeight()-bOffset);
+        mItemWidth = (float)getContentWidth() / window.slots;
+
+        // 圆心(数据个数多于像素列数时，先进行降采样)
+        ensurePointCapacity(mLayoutTo - mLayoutFrom);
+        mPointCount = projectCircles(mData, mLayoutFrom, mLayoutTo, mLayoutStart, mItemWidth,
+                mDownsampler, getContentWidth(), mScale, mLayoutIndices, mCircleX, mCircleY);
+        mDownsampled = mLayoutIndices.size() > 0;
+
+        layoutLabels();
+    }
+
+    /**
+     * 根据圆心计算标签、线段和刻度的坐标
+     */
+    private void layoutLabels() {
+        buildAxisLines();
+        updateLabelAtlas();
+        mTextHeight = (int)getFontHeight(mFontPaint);
         // 计算上标"o"的大小
-        int upperHeight = (int)Math.ceil(getFontHeight(mUpperPaint, TEMPERATURE_UPPER));
+        mUpperHeight = (int)Math.ceil(getFontHeight(mUpperPaint, TEMPERATURE_UPPER));
 
-        mCirclePositions.clear();
-        mFontPositions.clear();
-        mUpperPositions.clear();
-        mCirclePath.reset();
-        for (int i=0; i<mDataList.size(); i++) {
-            // 圆
-            int x = itemWidth*i + itemWidth/2;
-            int y = tOffset + (mMaxY-mDataList.get(i))*yRatio;
-            mCirclePositions.add(new Point(x, y));
-            // 将圆添加在mCirclePath中
-            mCirclePath.addCircle(x, y, mRadius, Path.Direction.CW);
-
-            // 数据文本你
-            String text = String.valueOf(mDataList.get(i));
-            float fontWidth = mFontPaint.measureText(text);
-            x = (int)(x-fontWidth/2);
-
-            if (mFontDirection==DIRECTION_DOWN) {
-                y = (int)(y+mRadius*2+mStrokeWidth*2);
-            } else {
-                y = (int)(y-(textMetrics.bottom - textMetrics.top));
+        for (int i=0; i<mPointCount; i++) {
+            layoutLabel(i, mData.get(getDataIndex(i)));
+        }
+        buildLines();
+        layoutSeries();
+        invalidateRenderCache();
+        mLayoutValid = true;
+    }
+
+    /**
+     * 计算其他数据序列的坐标(与主数据共用横坐标)
+     */
+    private void layoutSeries() {
+        for (int s=0; s<mSeries.size(); s++) {
+            Series series = mSeries.get(s);
+            series.ensureCapacity(mPointCount);
+
+            int count = 0;
+            for (int i=0; i<mPointCount; i++) {
+                int index = getDataIndex(i);
+                if (index >= series.data.size()) {
+                    break;
+                }
+                int value = series.data.get(index);
+                series.circleY[i] = mScale.project(value);
+                layoutLabel(value, mCircleX[i], series.circleY[i], series.direction,
+                        i, series.labels, series.fontX, series.fontY, series.upperX, series.upperY);
+                count++;
+            }
+            series.pointCount = count;
+
+            if ((count-1)*4 > series.lines.length) {
+                series.lines = new float[Math.max((count-1)*4, series.lines.length*2)];
+            }
+            series.lineCount = buildLines(mCircleX, series.circleY, count, mRadius, series.lines);
+        }
+    }
+
+    /**
+     * 计算[from, to)范围内数据的圆心坐标
+     *
+     * 只依赖参数，不依赖View的状态，因此也可以在工作线程中调用。
+     * 数据个数多于columns时，用downsampler降采样，结果保存在indices中；
+     * 否则indices被清空。circleX/circleY的长度不能小于(to-from)。
+     *
+     * @return 坐标的个数
+     */
+    private static int projectCircles(IntSeries data, int from, int to, float start, float itemWidth,
+            Downsampler downsampler, int columns, TrendScale scale,
+            IntSeries indices, float[] circleX, float[] circleY) {
+        int count = to - from;
+        indices.clear();
+        if (downsampler!=null && columns>0 && count>columns) {
+            downsampler.downsample(data, from, to, columns, indices);
+            count = indices.size();
+        }
+
+        boolean downsampled = indices.size() > 0;
+        for (int i=0; i<count; i++) {
+            int index = downsampled ? indices.get(i) : from+i;
+            circleX[i] = circleX(itemWidth, index, start);
+            circleY[i] = scale.project(data.get(index));
+        }
+        return count;
+    }
+
+    /**
+     * 第index个数据的圆心的横坐标
+     */
+    private static float circleX(float itemWidth, int index, float start) {
+        return (int)(itemWidth*(index-start) + itemWidth/2);
+    }
+
+    /**
+     * 追加数据之后，更新坐标
+     *
+     * @param evicted 最早的数据是否被丢弃；若是，则其余的点整体左移一格
+     */
+    private void appendPoint(boolean evicted) {
+        if (evicted) {
+            int count = mPointCount - 1;
+            System.arraycopy(mCircleX, 1, mCircleX, 0, count);
+            System.arraycopy(mCircleY, 1, mCircleY, 0, count);
+            System.arraycopy(mFontX, 1, mFontX, 0, count);
+            System.arraycopy(mFontY, 1, mFontY, 0, count);
+            System.arraycopy(mUpperX, 1, mUpperX, 0, count);
+            System.arraycopy(mUpperY, 1, mUpperY, 0, count);
+            System.arraycopy(mLabels, 1, mLabels, 0, count);
+            for (int i=0; i<count; i++) {
+                float dx = getCircleX(i) - mCircleX[i];
+                mCircleX[i] += dx;
+                mFontX[i] += dx;
+                mUpperX[i] += dx;
+            }
+            mPointCount = count;
+        }
+
+        mLayoutTo = mData.size();
+        ensurePointCapacity(mPointCount+1);
+        layoutPoint(mPointCount, mData.size()-1);
+        mPointCount++;
+        buildLines();
+        invalidateRenderCache();
+    }
+
+    /**
+     * 坐标数组只增长，不重新分配更小的数组
+     */
+    private void ensurePointCapacity(int capacity) {
+        if (capacity <= mCircleX.length) {
+            return ;
+        }
+        int newCapacity = Math.max(capacity, mCircleX.length*2);
+        mCircleX = Arrays.copyOf(mCircleX, newCapacity);
+        mCircleY = Arrays.copyOf(mCircleY, newCapacity);
+        mFontX = Arrays.copyOf(mFontX, newCapacity);
+        mFontY = Arrays.copyOf(mFontY, newCapacity);
+        mUpperX = Arrays.copyOf(mUpperX, newCapacity);
+        mUpperY = Arrays.copyOf(mUpperY, newCapacity);
+        mLabels = Arrays.copyOf(mLabels, newCapacity);
+    }
+
+    private int getContentWidth() {
+        return getMeasuredWidth() - getPaddingLeft() - getPaddingRight();
+    }
+
+    /**
+     * 是否需要降采样
+     */
+    private boolean needDownsample(int count) {
+        return mDownsampler!=null && count>getContentWidth() && getContentWidth()>0;
+    }
+
+    /**
+     * 第i个坐标对应的原始数据的索引
+     */
+    private int getDataIndex(int i) {
+        return mDownsampled ? mLayoutIndices.get(i) : mLayoutFrom+i;
+    }
+
+    /**
+     * 第i个数据的圆心的横坐标
+     */
+    private float getCircleX(int i) {
+        return circleX(mItemWidth, i, mLayoutStart);
+    }
+
+    /**
+     * 计算第index个数据的坐标，保存到坐标数组的第i个位置
+     */
+    private void layoutPoint(int i, int index) {
+        int value = mData.get(index);
+
+        // 圆
+        mCircleX[i] = getCircleX(index);
+        mCircleY[i] = mScale.project(value);
+        layoutLabel(i, value);
+    }
+
+    /**
+     * 根据第i个圆心，计算数值value的标签和上标的坐标
+     */
+    private void layoutLabel(int i, int value) {
+        layoutLabel(value, mCircleX[i], mCircleY[i], mFontDirection, i, mLabels, mFontX, mFontY, mUpperX, mUpperY);
+    }
+
+    /**
+     * 根据圆心(x, y)，计算数值value的标签和上标的坐标，保存到各数组的第i个位置
+     */
+    private void layoutLabel(int value, float x, float y, int direction,
+            int i, String[] labels, float[] fontX, float[] fontY, float[] upperX, float[] upperY) {
+        // 数据文本(标签在这里取出，draw()中不再访问mLabelCache)
+        labels[i] = mLabelCache.getLabel(value);
+        float fontWidth = mLabelCache.getWidth(value, mFontPaint);
+        x = (int)(x-fontWidth/2);
+
+        if (direction==DIRECTION_DOWN) {
+            y = (int)(y+mRadius*2+mStrokeWidth*2);
+        } else {
+            y = (int)(y-mTextHeight);
+        }
+        fontX[i] = x;
+        fontY[i] = y;
+
+        // 上标
+        upperX[i] = (int)(x+fontWidth);
+        upperY[i] = (int)(y-mUpperHeight/2);
+    }
+
+    /**
+     * 计算所有线段的端点
+     *
+     * 每条线段的两端都按圆的半径缩短，使线段不会画进圆圈里面，
+     * 这样绘制时就不需要用所有的圆去clipPath()。
+     */
+    private void buildLines() {
+        int count = Math.max(mPointCount-1, 0) * 4;
+        if (count > mLines.length) {
+            mLines = Arrays.copyOf(mLines, Math.max(count, mLines.length*2));
+        }
+        mLineCount = buildLines(mCircleX, mCircleY, mPointCount, mRadius, mLines);
+    }
+
+    /**
+     * 计算count个圆心之间线段的端点，保存到lines中
+     *
+     * @return lines中有效的float个数
+     */
+    private static int buildLines(float[] x, float[] y, int count, float radius, float[] lines) {
+        int n = 0;
+        for (int i=0; i<count-1; i++) {
+            float dx = x[i+1] - x[i];
+            float dy = y[i+1] - y[i];
+            float length = (float)Math.sqrt(dx*dx + dy*dy);
+            if (length <= radius*2) {
+                // 两个圆重叠，线段完全在圆内
+                continue;
             }
-            mFontPositions.add(new Point(x, y)); 
 
-            // 上标
-            int upperX = (int)(x+fontWidth);
-            int upperY = (int)(y-upperHeight/2);
-            mUpperPositions.add(new Point(upperX, upperY));
+            float ox = dx * radius / length;
+            float oy = dy * radius / length;
+            lines[n++] = x[i] + ox;
+            lines[n++] = y[i] + oy;
+            lines[n++] = x[i+1] - ox;
+            lines[n++] = y[i+1] - oy;
+        }
+        return n;
+    }
+
+    /**
+     * 数据序列(通过addSeries()添加)
+     */
+    private static class Series {
+        final IntSeries data = new IntSeries();
+        final RangeTracker range = new RangeTracker(data);
+        int direction = DIRECTION_UP;
+
+        final Paint linePaint;
+        final Paint circlePaint;
+        final Paint innerPaint;
+
+        // 坐标(横坐标与主数据共用)
+        int pointCount;
+        float[] circleY = new float[0];
+        String[] labels = new String[0];
+        float[] fontX = new float[0];
+        float[] fontY = new float[0];
+        float[] upperX = new float[0];
+        float[] upperY = new float[0];
+        float[] lines = new float[0];
+        int lineCount;
+
+        Series(int color, int strokeWidth) {
+            linePaint = new Paint();
+            linePaint.setAntiAlias(true);
+            linePaint.setStrokeWidth(strokeWidth);
+            linePaint.setColor(color);
+
+            circlePaint = new Paint(linePaint);
+            circlePaint.setStyle(Style.STROKE);
+
+            innerPaint = new Paint(linePaint);
+            innerPaint.setStyle(Style.FILL);
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity <= circleY.length) {
+                return ;
+            }
+            int newCapacity = Math.max(capacity, circleY.length*2);
+            circleY = Arrays.copyOf(circleY, newCapacity);
+            labels = Arrays.copyOf(labels, newCapacity);
+            fontX = Arrays.copyOf(fontX, newCapacity);
+            fontY = Arrays.copyOf(fontY, newCapacity);
+            upperX = Arrays.copyOf(upperX, newCapacity);
+            upperY = Arrays.copyOf(upperY, newCapacity);
         }
-        mCirclePath.close();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!mGesturesEnabled || mData.size()==0) {
+            return super.onTouchEvent(event);
+        }
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            mGestureConsumed = false;
+        }
+        mScaleDetector.onTouchEvent(event);
+        mGestureDetector.onTouchEvent(event);
+        if (mScaleDetector.isInProgress()) {
+            consumeGesture(event);
+        }
+
+        // 没有被手势消费的事件交给View处理(按下状态、点击、长按)
+        if (!mGestureConsumed) {
+            super.onTouchEvent(event);
+        }
+        return true;
+    }
+
+    /**
+     * 开始拖动或缩放：取消View对这次触摸的按下状态和长按检测
+     */
+    private void consumeGesture(MotionEvent event) {
+        if (mGestureConsumed) {
+            return ;
+        }
+        mGestureConsumed = true;
+        MotionEvent cancel = MotionEvent.obtain(event);
+        cancel.setAction(MotionEvent.ACTION_CANCEL);
+        super.onTouchEvent(cancel);
+        cancel.recycle();
+    }
+
+    /**
+     * 单击：选中最近的数据点
+     * 单指水平拖动：平移可见窗口；显示所有数据时，改为拖动选择数据点
+     */
+    private GestureDetector.OnGestureListener mGestureListener = new GestureDetector.SimpleOnGestureListener() {
+        @Override
+        public boolean onDown(MotionEvent e) {
+            return true;
+        }
+
+        @Override
+        public boolean onSingleTapUp(MotionEvent e) {
+            selectPointAt(e.getX());
+            // 可点击时由View在ACTION_UP中调用performClick()，这里只补上不可点击的情况
+            if (!isClickable()) {
+                performClick();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+            if (mScaleDetector.isInProgress() || Math.abs(distanceX) < Math.abs(distanceY)) {
+                return false;
+            }
+            getParent().requestDisallowInterceptTouchEvent(true);
+            consumeGesture(e2);
+            if (!isViewportEnabled()) {
+                // 显示所有数据时，拖动用于切换选中的数据点
+                selectPointAt(e2.getX());
+                return true;
+            }
+            long start = mMetrics!=null ? System.nanoTime() : 0;
+            mViewportStart += distanceX / mItemWidth;
+            onViewportChanged();
+            if (mMetrics != null) {
+                mMetrics.record(WidgetMetrics.OP_SCROLL, System.nanoTime()-start);
+            }
+            return true;
+        }
+    };
+
+    /**
+     * 双指捏合：以焦点为中心缩放可见窗口
+     */
+    private ScaleGestureDetector.OnScaleGestureListener mScaleListener = new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+        @Override
+        public boolean onScale(ScaleGestureDetector detector) {
+            if (!mLayoutValid) {
+                return false;
+            }
+            getParent().requestDisallowInterceptTouchEvent(true);
+            float count = isViewportEnabled() ? mViewportCount : mData.size();
+            float focusX = detector.getFocusX();
+            // 焦点处的数据在缩放前后保持不动
+            float focusIndex = mLayoutStart + focusX/mItemWidth;
+            float newCount = Math.max(count/detector.getScaleFactor(), MIN_VIEWPORT_COUNT);
+            mViewportStart = focusIndex - focusX*newCount/getContentWidth();
+            mViewportCount = newCount;
+            onViewportChanged();
+            return true;
+        }
+    };
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        // 大小改变：缓存需要重新创建
+        releaseRenderCache();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        releaseRenderCache();
     }
 
     @Override
     public void draw(Canvas canvas) {
-        int N = mCirclePositions.size();
+        long start = mMetrics!=null ? System.nanoTime() : 0;
+        drawFrame(canvas);
+        if (mMetrics != null) {
+            mMetrics.record(WidgetMetrics.OP_DRAW, System.nanoTime()-start);
+        }
+    }
 
-        // 绘制圆和文字
-        for (int i=0; i < N; i++) {
-            // 圆
-            canvas.drawCircle(mCirclePositions.get(i).x, mCirclePositions.get(i).y, mRadius, mCirclePaint);
-            if (i==mIndex) {
-                canvas.drawCircle(mCirclePositions.get(i).x, mCirclePositions.get(i).y, mRadius-2, mInnerPaint);
+    private void drawFrame(Canvas canvas) {
+        applyPendingFrame();
+        if (!mRenderCacheEnabled || getWidth()<=0 || getHeight()<=0) {
+            drawContent(canvas, true);
+            return ;
+        }
+
+        if (mCacheBitmap == null) {
+            mCacheBitmap = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+            mCacheCanvas = new Canvas(mCacheBitmap);
+            mCacheValid = false;
+        }
+        if (!mCacheValid) {
+            mCacheBitmap.eraseColor(0);
+            drawContent(mCacheCanvas, false);
+            mCacheValid = true;
+        }
+        canvas.drawBitmap(mCacheBitmap, 0, 0, null);
+        drawSelection(canvas);
+    }
+
+    /**
+     * 绘制选中项的实心圆
+     */
+    private void drawSelection(Canvas canvas) {
+        int slot = findSlot(mIndex);
+        if (slot < 0) {
+            return ;
+        }
+        canvas.drawCircle(mCircleX[slot], mCircleY[slot], mRadius-2, mInnerPaint);
+        for (int s=0; s<mSeries.size(); s++) {
+            Series series = mSeries.get(s);
+            if (slot < series.pointCount) {
+                canvas.drawCircle(mCircleX[slot], series.circleY[slot], mRadius-2, series.innerPaint);
             }
+        }
+    }
 
-            // 文字
-            String str = String.valueOf(mDataList.get(i));
-            canvas.drawText(str, 0, str.length(), mFontPositions.get(i).x, mFontPositions.get(i).y, mFontPaint);
-            canvas.drawText(TEMPERATURE_UPPER, 0, 1, mUpperPositions.get(i).x, mUpperPositions.get(i).y, mUpperPaint);
+    /**
+     * 绘制趋势图
+     *
+     * @param selection 是否绘制选中项的实心圆
+     */
+    private void drawContent(Canvas canvas, boolean selection) {
+        int N = mPointCount;
+
+        // 坐标轴刻度
+        if (mAxisEnabled && N>0) {
+            int ticks = mScale.getTickCount();
+            canvas.drawLines(mAxisLines, 0, ticks*4, mAxisPaint);
+            for (int i=0; i<ticks; i++) {
+                String label = mScale.getTickLabel(i);
+                canvas.drawText(label, 0, label.length(), getPaddingLeft(), mScale.getTickPosition(i)-1, mAxisPaint);
+            }
         }
 
-        // 当前区域 = 整个画布 - 所有圆组成的区域。然后，在当前区域上绘制线段。
-        canvas.clipPath(mCirclePath, Region.Op.DIFFERENCE);
-        canvas.save();
-        for (int i=0; i < N-1; i++) {
-            // 线段
-            canvas.drawLine(mCirclePositions.get(i).x, mCirclePositions.get(i).y, 
-                    mCirclePositions.get(i+1).x, mCirclePositions.get(i+1).y, mLinePaint);
+        // 绘制圆和文字
+        drawPoints(canvas, N, mCircleY, mLabels, mFontX, mFontY, mUpperX, mUpperY, mCirclePaint);
+        for (int s=0; s<mSeries.size(); s++) {
+            Series series = mSeries.get(s);
+            drawPoints(canvas, series.pointCount, series.circleY, series.labels,
+                    series.fontX, series.fontY, series.upperX, series.upperY, series.circlePaint);
+        }
+        if (selection) {
+            drawSelection(canvas);
+        }
+
+        // 线段(端点已按半径缩短，每条序列一次性绘制)
+        if (mLineCount > 0) {
+            canvas.drawLines(mLines, 0, mLineCount, mLinePaint);
+        }
+        for (int s=0; s<mSeries.size(); s++) {
+            Series series = mSeries.get(s);
+            if (series.lineCount > 0) {
+                canvas.drawLines(series.lines, 0, series.lineCount, series.linePaint);
+            }
+        }
+    }
+
+    /**
+     * 绘制一条数据序列的圆环和文字(横坐标使用mCircleX)
+     */
+    private void drawPoints(Canvas canvas, int count, float[] circleY, String[] labels,
+            float[] fontX, float[] fontY, float[] upperX, float[] upperY, Paint circlePaint) {
+        for (int i=0; i < count; i++) {
+            // 圆
+            canvas.drawCircle(mCircleX[i], circleY[i], mRadius, circlePaint);
+
+            // 文字(标签在布局时已确定，这里不会查表，也不会分配新的对象)
+            String str = labels[i];
+            if (mLabelAtlas != null) {
+                mLabelAtlas.drawText(canvas, str, fontX[i], fontY[i]);
+                mLabelAtlas.drawUpper(canvas, upperX[i], upperY[i]);
+            } else {
+                canvas.drawText(str, 0, str.length(), fontX[i], fontY[i], mFontPaint);
+                canvas.drawText(TEMPERATURE_UPPER, 0, 1, upperX[i], upperY[i], mUpperPaint);
+            }
         }
-        canvas.restore();
     }
 
     public float getFontHeight(Paint p) {
@@ -307,19 +1573,15 @@ public class TrendView extends View {
     }     
 
     public float getFontHeight(Paint p, String text) {
-        return getFontSize(p, text).height;
+        return TextMeasureCache.getHeight(p, text);
     }
 
     public float getFontWidth(Paint p, String text) {
-        return getFontSize(p, text).width;
+        return TextMeasureCache.getWidth(p, text);
     }
 
     public Size getFontSize(Paint p, String text) {
-        FontMetrics metrics = p.getFontMetrics();
-        float width = p.measureText(text);
-        float height = metrics.bottom - metrics.top;
-
-        return new Size(width, height);
+        return new Size(getFontWidth(p, text), getFontHeight(p, text));
     }
 
     public static class Size {
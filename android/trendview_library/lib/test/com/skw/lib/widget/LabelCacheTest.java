@@ -0,0 +1,87 @@
+package com.skw.lib.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Test;
+
+/**
+ * LabelCache的命中和分配测试
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class LabelCacheTest {
+    // 命中时允许的分配量(字节)，留出JIT等的余量
+    private static final long ALLOCATION_SLACK = 4096;
+
+    @Test
+    public void labelMatchesValue() {
+        LabelCache cache = new LabelCache();
+        assertEquals("0", cache.getLabel(0));
+        assertEquals("-15", cache.getLabel(-15));
+        assertEquals(String.valueOf(Integer.MIN_VALUE), cache.getLabel(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void hitReturnsSameInstance() {
+        LabelCache cache = new LabelCache();
+        String label = cache.getLabel(37);
+        assertSame(label, cache.getLabel(37));
+    }
+
+    @Test
+    public void growthKeepsCachedInstances() {
+        LabelCache cache = new LabelCache();
+        String label = cache.getLabel(-40);
+        // 触发多次扩容
+        for (int i=0; i<1000; i++) {
+            cache.getLabel(i);
+        }
+        assertSame(label, cache.getLabel(-40));
+        for (int i=0; i<1000; i++) {
+            assertEquals(String.valueOf(i), cache.getLabel(i));
+        }
+    }
+
+    @Test
+    public void clearedWhenFull() {
+        LabelCache cache = new LabelCache();
+        // 超过上限之后整体清空，结果仍然正确
+        for (int i=0; i<10000; i++) {
+            assertEquals(String.valueOf(i), cache.getLabel(i));
+        }
+    }
+
+    @Test
+    public void hitsDoNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            // 当前JVM不支持统计线程的分配量
+            return ;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long thread = Thread.currentThread().getId();
+
+        LabelCache cache = new LabelCache();
+        for (int i=-50; i<50; i++) {
+            cache.getLabel(i);
+        }
+
+        long sink = 0;
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int round=0; round<10000; round++) {
+            for (int i=-50; i<50; i++) {
+                sink += cache.getLabel(i).length();
+            }
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertTrue(sink > 0);
+        assertTrue("allocated "+allocated+" bytes on cache hits", allocated < ALLOCATION_SLACK);
+    }
+}
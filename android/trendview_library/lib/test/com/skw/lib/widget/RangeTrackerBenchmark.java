@@ -0,0 +1,95 @@
+package com.skw.lib.widget;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * RangeTracker的基准测试(不是单元测试，直接运行main())
+ *
+ * 分别在10k和100k个数据上测量：
+ * (01) 滑动窗口追加(append + removeFirst)后读取最大/最小值；
+ * (02) 随机修改一个数据后读取最大/最小值；
+ * 并与每次重新遍历(rescan)、以及原来的做法(clone()整个ArrayList后Collections.sort())对比，
+ * 输出相对于原来做法的加速比。每次增量操作的耗时应与数据个数基本无关。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class RangeTrackerBenchmark {
+    private static final int OPERATIONS = 200000;
+    private static final int RESCAN_OPERATIONS = 200;
+    private static final int SORT_OPERATIONS = 50;
+
+    public static void main(String[] args) {
+        // 预热
+        run(10000, false);
+        run(100000, false);
+
+        run(10000, true);
+        run(100000, true);
+    }
+
+    private static void run(int size, boolean print) {
+        Random random = new Random(size);
+        IntSeries series = new IntSeries(size+1);
+        for (int i=0; i<size; i++) {
+            series.add(random.nextInt(100000));
+        }
+        RangeTracker tracker = new RangeTracker(series);
+        tracker.rescan();
+        long sink = 0;
+
+        long start = System.nanoTime();
+        for (int i=0; i<OPERATIONS; i++) {
+            series.removeFirst();
+            tracker.onRemoveFirst();
+            series.add(random.nextInt(100000));
+            tracker.onAppend();
+            sink += tracker.getMin() + tracker.getMax();
+        }
+        long append = (System.nanoTime()-start) / OPERATIONS;
+
+        start = System.nanoTime();
+        for (int i=0; i<OPERATIONS; i++) {
+            int index = random.nextInt(size);
+            series.set(index, random.nextInt(100000));
+            tracker.onReplace(index);
+            sink += tracker.getMin() + tracker.getMax();
+        }
+        long replace = (System.nanoTime()-start) / OPERATIONS;
+
+        start = System.nanoTime();
+        for (int i=0; i<RESCAN_OPERATIONS; i++) {
+            tracker.rescan();
+            sink += tracker.getMin() + tracker.getMax();
+        }
+        long rescan = (System.nanoTime()-start) / RESCAN_OPERATIONS;
+
+        // 原来的做法：数据保存在ArrayList<Integer>中，每次修改后clone()并排序，取首尾
+        ArrayList<Integer> list = new ArrayList<Integer>(size);
+        for (int i=0; i<size; i++) {
+            list.add(series.get(i));
+        }
+        start = System.nanoTime();
+        for (int i=0; i<SORT_OPERATIONS; i++) {
+            list.set(random.nextInt(size), random.nextInt(100000));
+            sink += sortedRange(list);
+        }
+        long sort = (System.nanoTime()-start) / SORT_OPERATIONS;
+
+        if (print) {
+            System.out.println("size="+size+": append="+append+"ns/op, replace="+replace
+                    +"ns/op, rescan="+rescan+"ns/op, clone+sort="+sort+"ns/op (sink="+(sink&1)+")");
+            System.out.println("    speedup over clone+sort: append x"+(sort/Math.max(append, 1))
+                    +", replace x"+(sort/Math.max(replace, 1)));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long sortedRange(ArrayList<Integer> list) {
+        ArrayList<Integer> tmpList = (ArrayList<Integer>)list.clone();
+        Collections.sort(tmpList);
+        return tmpList.get(0) + tmpList.get(tmpList.size()-1);
+    }
+}
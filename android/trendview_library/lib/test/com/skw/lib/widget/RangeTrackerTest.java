@@ -0,0 +1,76 @@
+package com.skw.lib.widget;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * RangeTracker与逐个遍历的结果对比
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class RangeTrackerTest {
+
+    @Test
+    public void randomOperations() {
+        Random random = new Random(1);
+        IntSeries series = new IntSeries();
+        RangeTracker tracker = new RangeTracker(series);
+        tracker.rescan();
+
+        for (int i=0; i<20000; i++) {
+            int op = random.nextInt(10);
+            if (op<5 || series.size()==0) {
+                series.add(random.nextInt(1000) - 500);
+                tracker.onAppend();
+            } else if (op < 7) {
+                series.removeFirst();
+                tracker.onRemoveFirst();
+            } else {
+                int index = random.nextInt(series.size());
+                series.set(index, random.nextInt(1000) - 500);
+                tracker.onReplace(index);
+            }
+            if (series.size() > 0) {
+                assertRange(series, tracker);
+            }
+        }
+    }
+
+    @Test
+    public void replaceExtremes() {
+        IntSeries series = new IntSeries();
+        series.setAll(new int[] {5, 1, 9, 3});
+        RangeTracker tracker = new RangeTracker(series);
+        tracker.rescan();
+
+        // 修改当前的最小值和最大值
+        series.set(1, 4);
+        tracker.onReplace(1);
+        series.set(2, 6);
+        tracker.onReplace(2);
+        assertEquals(3, tracker.getMin());
+        assertEquals(6, tracker.getMax());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void emptySeries() {
+        RangeTracker tracker = new RangeTracker(new IntSeries());
+        tracker.rescan();
+        tracker.getMin();
+    }
+
+    private static void assertRange(IntSeries series, RangeTracker tracker) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i=0; i<series.size(); i++) {
+            min = Math.min(min, series.get(i));
+            max = Math.max(max, series.get(i));
+        }
+        assertEquals(min, tracker.getMin());
+        assertEquals(max, tracker.getMax());
+    }
+}
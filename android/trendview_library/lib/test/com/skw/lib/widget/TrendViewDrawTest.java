@@ -0,0 +1,162 @@
+package com.skw.lib.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.view.View.MeasureSpec;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * draw()的分配测试
+ *
+ * 布局完成之后，drawFrame()/drawContent()/drawPoints()只读取布局时计算好的坐标和标签，
+ * 不应该分配任何对象。绘制到只记录调用次数的RecordingCanvas上，
+ * 用线程的分配量统计重复绘制时分配的字节数。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class TrendViewDrawTest {
+    // 允许的分配量(字节)，留出JIT等的余量
+    private static final long ALLOCATION_SLACK = 4096;
+    private static final int WARMUP_FRAMES = 5000;
+    private static final int FRAMES = 2000;
+
+    private static final int[] DATA = {
+        12, -3, 7, 25, 18, -11, 0, 9, 31, 4, -6, 15,
+    };
+    private static final int[] SERIES = {
+        20, 5, 14, 33, 26, -1, 8, 17, 40, 12, 2, 23,
+    };
+
+    @Test
+    public void drawCallsMatchLayout() {
+        TrendView view = createView();
+        RecordingCanvas canvas = new RecordingCanvas();
+        view.draw(canvas);
+
+        // 每条序列每个点一个圆环，选中项在每条序列上各一个实心圆
+        assertEquals(2*DATA.length + 2, canvas.circles);
+        // 每个点的标签和上标各一次，另外每个刻度一个刻度值
+        assertTrue(canvas.texts >= 4*DATA.length);
+        // 刻度线、数据线段、序列线段各一次
+        assertEquals(3, canvas.lines);
+    }
+
+    @Test
+    public void drawDoesNotAllocate() {
+        assertDrawDoesNotAllocate(createView());
+    }
+
+    @Test
+    public void labelAtlasDrawDoesNotAllocate() {
+        TrendView view = createView();
+        view.setLabelAtlasEnabled(true);
+        assertDrawDoesNotAllocate(view);
+    }
+
+    @Test
+    public void renderCacheDrawDoesNotAllocate() {
+        TrendView view = createView();
+        view.setRenderCacheEnabled(true);
+        assertDrawDoesNotAllocate(view);
+    }
+
+    private static TrendView createView() {
+        TrendView view = new TrendView(RuntimeEnvironment.application);
+        view.setData(DATA);
+        view.addSeries(SERIES, Color.RED, TrendView.DIRECTION_DOWN);
+        view.setAxisEnabled(true);
+        view.setCurrentIndex(3);
+        view.measure(MeasureSpec.makeMeasureSpec(720, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(400, MeasureSpec.EXACTLY));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+        return view;
+    }
+
+    private static void assertDrawDoesNotAllocate(TrendView view) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            // 当前JVM不支持统计线程的分配量
+            return ;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long thread = Thread.currentThread().getId();
+
+        RecordingCanvas canvas = new RecordingCanvas();
+        // 第一帧可能创建缓存的Bitmap；之后充分预热：
+        // Robolectric改写过的View方法(getWidth()等)在JIT编译之前会分配少量对象
+        for (int i=0; i<WARMUP_FRAMES; i++) {
+            view.draw(canvas);
+        }
+
+        canvas.reset();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i=0; i<FRAMES; i++) {
+            view.draw(canvas);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertTrue(canvas.calls() >= FRAMES);
+        assertTrue("allocated "+allocated+" bytes in "+FRAMES+" frames", allocated < ALLOCATION_SLACK);
+    }
+
+    /**
+     * 只记录调用次数的Canvas，本身不分配对象
+     */
+    private static class RecordingCanvas extends Canvas {
+        int circles;
+        int texts;
+        int lines;
+        int bitmaps;
+
+        void reset() {
+            circles = texts = lines = bitmaps = 0;
+        }
+
+        int calls() {
+            return circles + texts + lines + bitmaps;
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+            circles++;
+        }
+
+        @Override
+        public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+            texts++;
+        }
+
+        @Override
+        public void drawLines(float[] pts, int offset, int count, Paint paint) {
+            lines++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+            bitmaps++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+            bitmaps++;
+        }
+    }
+}
@@ -28,7 +28,10 @@ public class MainActivity extends Activity {
         
     private void initView() {
         mTrendView = (TrendView)findViewById(R.id.trend_view);
+        // 白天(主数据)
         mTrendView.setData(new int[]{23, 26, 21, 17, 18, 19});
+        // 夜间：与白天共用横坐标和纵坐标范围，字体显示在圆圈下面
+        mTrendView.addSeries(new int[]{18, 20, 17, 10, 13, 14}, 0xff6391bf, TrendView.DIRECTION_DOWN);
         mTrendView.setCurrentIndex(2);
     }
 }
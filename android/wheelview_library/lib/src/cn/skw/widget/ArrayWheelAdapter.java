@@ -0,0 +1,70 @@
+package cn.skw.widget;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+
+import java.util.List;
+
+/**
+ * 基于数组、List或数组资源的数据源
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class ArrayWheelAdapter implements WheelAdapter, WheelAdapter.Searchable {
+    private final String[] mItems;
+    private final List<String> mList;
+
+    public ArrayWheelAdapter(String[] items) {
+        mItems = items;
+        mList = null;
+    }
+
+    /**
+     * 直接使用list(不复制)，之后修改list需要重新设置数据
+     */
+    public ArrayWheelAdapter(List<String> list) {
+        mItems = null;
+        mList = list;
+    }
+
+    /**
+     * 读取数组资源，例如 R.array.data_array
+     */
+    public ArrayWheelAdapter(Context context, int arrayResId) {
+        TypedArray array = context.getResources().obtainTypedArray(arrayResId);
+        String[] items = new String[array.length()];
+        for (int i=0; i<items.length; i++) {
+            items[i] = array.getString(i);
+        }
+        array.recycle();
+        mItems = items;
+        mList = null;
+    }
+
+    @Override
+    public int getCount() {
+        return mItems!=null ? mItems.length : mList.size();
+    }
+
+    @Override
+    public String getItem(int index) {
+        return mItems!=null ? mItems[index] : mList.get(index);
+    }
+
+    /**
+     * 数据已经保存在数组/List中，逐个比较不会创建新的String
+     */
+    @Override
+    public int indexOf(String value) {
+        if (mList != null) {
+            return mList.indexOf(value);
+        }
+        for (int i=0; i<mItems.length; i++) {
+            if (mItems[i]!=null && mItems[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
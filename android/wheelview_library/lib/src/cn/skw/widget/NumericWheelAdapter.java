@@ -0,0 +1,102 @@
+package cn.skw.widget;
+
+/**
+ * 整数区间[min, max]的数据源
+ *
+ * 不保存任何数据，getItem()时才生成文字，占用的内存与区间大小无关。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class NumericWheelAdapter implements WheelAdapter, WheelAdapter.Searchable {
+    private final int mMin;
+    private final int mMax;
+    // 格式(例如"%02d")，null表示直接转换
+    private final String mFormat;
+
+    public NumericWheelAdapter(int min, int max) {
+        this(min, max, null);
+    }
+
+    public NumericWheelAdapter(int min, int max, String format) {
+        mMin = min;
+        mMax = Math.max(min-1, max);
+        mFormat = format;
+    }
+
+    @Override
+    public int getCount() {
+        return mMax - mMin + 1;
+    }
+
+    @Override
+    public String getItem(int index) {
+        if (index<0 || index>=getCount()) {
+            throw new IndexOutOfBoundsException("index="+index+", count="+getCount());
+        }
+        int value = mMin + index;
+        return mFormat==null ? String.valueOf(value) : String.format(mFormat, value);
+    }
+
+    /**
+     * 从value中解析整数，并确认格式化后与value相同，O(value的长度)
+     *
+     * 格式中可能有其他数字(例如"No.1-%d")，所以依次尝试value中的每一段数字。
+     */
+    @Override
+    public int indexOf(String value) {
+        if (value == null) {
+            return -1;
+        }
+        int length = value.length();
+        int start = 0;
+        while (start < length) {
+            if (!Character.isDigit(value.charAt(start))) {
+                start++;
+                continue;
+            }
+            int end = start;
+            while (end<length && Character.isDigit(value.charAt(end))) {
+                end++;
+            }
+            // 数字前的'-'可能是负号，也可能是格式中的文字，两种都试
+            if (start>0 && value.charAt(start-1)=='-') {
+                int index = indexOfNumber(value, start-1, end);
+                if (index >= 0) {
+                    return index;
+                }
+            }
+            int index = indexOfNumber(value, start, end);
+            if (index >= 0) {
+                return index;
+            }
+            start = end;
+        }
+        return -1;
+    }
+
+    /**
+     * text[start, end)对应的索引；不在区间内，或者格式化后与text不同时返回-1
+     */
+    private int indexOfNumber(String text, int start, int end) {
+        long number;
+        try {
+            number = Long.parseLong(text.substring(start, end));
+        } catch (NumberFormatException e) {
+            // 超出long的范围
+            return -1;
+        }
+        if (number<mMin || number>mMax) {
+            return -1;
+        }
+        int index = (int)(number - mMin);
+        return text.equals(getItem(index)) ? index : -1;
+    }
+
+    /**
+     * 获取第index项对应的整数
+     */
+    public int getValue(int index) {
+        return mMin + index;
+    }
+}
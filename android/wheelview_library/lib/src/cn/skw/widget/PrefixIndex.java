@@ -0,0 +1,83 @@
+package cn.skw.widget;
+
+/**
+ * WheelView数据的前缀索引
+ *
+ * 将所有数据按字符串排序(相同的数据保持原来的先后顺序)，
+ * 查找时用二分法找到第一个不小于前缀的数据，O(log n)。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+class PrefixIndex {
+    // 排序后的数据
+    private final String[] mKeys;
+    // mKeys[i]在原数据中的索引
+    private final int[] mIndexes;
+
+    PrefixIndex(WheelAdapter adapter) {
+        int count = adapter.getCount();
+        String[] items = new String[count];
+        int[] order = new int[count];
+        for (int i=0; i<count; i++) {
+            String item = adapter.getItem(i);
+            items[i] = item!=null ? item : "";
+            order[i] = i;
+        }
+        sort(items, order, new int[count], 0, count);
+
+        mKeys = new String[count];
+        for (int i=0; i<count; i++) {
+            mKeys[i] = items[order[i]];
+        }
+        mIndexes = order;
+    }
+
+    /**
+     * 查找以prefix开头的数据(按字符串顺序的第一个)
+     *
+     * @return 该数据在原数据中的索引；不存在时返回-1
+     */
+    int find(String prefix) {
+        int low = 0;
+        int high = mKeys.length;
+        while (low < high) {
+            int mid = (low+high) >>> 1;
+            if (mKeys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low<mKeys.length && mKeys[low].startsWith(prefix)) {
+            return mIndexes[low];
+        }
+        return -1;
+    }
+
+    /**
+     * 按items[order[i]]对order[from, to)进行归并排序(稳定)
+     */
+    private static void sort(String[] items, int[] order, int[] buffer, int from, int to) {
+        if (to-from < 2) {
+            return ;
+        }
+        int mid = (from+to) >>> 1;
+        sort(items, order, buffer, from, mid);
+        sort(items, order, buffer, mid, to);
+        if (items[order[mid-1]].compareTo(items[order[mid]]) <= 0) {
+            // 已经有序
+            return ;
+        }
+        System.arraycopy(order, from, buffer, from, to-from);
+        int i = from;
+        int j = mid;
+        for (int k=from; k<to; k++) {
+            if (j>=to || (i<mid && items[buffer[i]].compareTo(items[buffer[j]]) <= 0)) {
+                order[k] = buffer[i++];
+            } else {
+                order[k] = buffer[j++];
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package cn.skw.widget;
+
+/**
+ * WheelView的数据源
+ *
+ * WheelView只在需要显示某一项时才调用getItem()，
+ * 因此数据可以按需计算，而不必事先全部生成。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public interface WheelAdapter {
+    /**
+     * 数据的个数
+     */
+    public int getCount();
+
+    /**
+     * 获取第index项的文字
+     */
+    public String getItem(int index);
+
+    /**
+     * [可选] 按文字查找数据的索引
+     *
+     * 数据源实现了该接口时，WheelView更换数据后用它查找原来选中的值，
+     * 而不必对每一项调用getItem()(按需生成文字的数据源会因此创建大量String)。
+     */
+    public interface Searchable {
+        /**
+         * value对应的索引，不存在时返回-1
+         */
+        public int indexOf(String value);
+    }
+}
@@ -0,0 +1,160 @@
+package cn.skw.widget;
+
+import java.util.ArrayList;
+
+/**
+ * 两组WheelView数据之间的差异(Myers算法)
+ *
+ * 先去掉相同的前缀和后缀，再对剩余部分求最短编辑脚本。
+ * 结果是一组操作：KEEP(保留旧数据的一项)、DELETE(删除旧数据的一项)、
+ * INSERT(插入新数据的一项)，按顺序依次作用在旧数据上即可得到新数据。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+class WheelDiff {
+    static final int KEEP   = 0;
+    static final int DELETE = 1;
+    static final int INSERT = 2;
+
+    private WheelDiff() {
+    }
+
+    /**
+     * 计算从oldData到newData的编辑脚本
+     *
+     * @param maxEdits 最多允许的插入/删除的次数；超过时返回null(此时直接重建更划算)
+     */
+    static int[] diff(WheelAdapter oldData, WheelAdapter newData, int maxEdits) {
+        int n = oldData.getCount();
+        int m = newData.getCount();
+
+        // 相同的前缀和后缀
+        int start = 0;
+        while (start<n && start<m && equal(oldData, start, newData, start)) {
+            start++;
+        }
+        int endOld = n;
+        int endNew = m;
+        while (endOld>start && endNew>start && equal(oldData, endOld-1, newData, endNew-1)) {
+            endOld--;
+            endNew--;
+        }
+
+        int[] middle = myers(oldData, newData, start, endOld-start, endNew-start, maxEdits);
+        if (middle == null) {
+            return null;
+        }
+
+        int suffix = n - endOld;
+        int[] ops = new int[start + middle.length + suffix];
+        // KEEP为0，前缀和后缀不需要赋值
+        System.arraycopy(middle, 0, ops, start, middle.length);
+        return ops;
+    }
+
+    /**
+     * 按编辑脚本把旧数据的索引映射到新数据的索引；该项被删除时返回-1
+     */
+    static int mapIndex(int[] ops, int oldIndex) {
+        int oldPos = 0;
+        int newPos = 0;
+        for (int op : ops) {
+            if (op == KEEP) {
+                if (oldPos == oldIndex) {
+                    return newPos;
+                }
+                oldPos++;
+                newPos++;
+            } else if (op == DELETE) {
+                if (oldPos == oldIndex) {
+                    return -1;
+                }
+                oldPos++;
+            } else {
+                newPos++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 对oldData[start, start+n)和newData[start, start+m)求最短编辑脚本
+     */
+    private static int[] myers(WheelAdapter oldData, WheelAdapter newData, int start, int n, int m, int maxEdits) {
+        int limit = Math.min(n+m, maxEdits);
+        int offset = limit + 1;
+        // v[k+offset]：对角线k上能到达的最远的x
+        int[] v = new int[2*limit + 3];
+        // trace.get(d)：第d步之前的v
+        ArrayList<int[]> trace = new ArrayList<int[]>();
+
+        int found = -1;
+        for (int d=0; d<=limit && found<0; d++) {
+            trace.add(v.clone());
+            for (int k=-d; k<=d; k+=2) {
+                int x;
+                if (k==-d || (k!=d && v[k-1+offset] < v[k+1+offset])) {
+                    x = v[k+1+offset];          // 向下：插入
+                } else {
+                    x = v[k-1+offset] + 1;      // 向右：删除
+                }
+                int y = x - k;
+                while (x<n && y<m && equal(oldData, start+x, newData, start+y)) {
+                    x++;
+                    y++;
+                }
+                v[k+offset] = x;
+                if (x>=n && y>=m) {
+                    found = d;
+                    break;
+                }
+            }
+        }
+        if (found < 0) {
+            return null;
+        }
+
+        // 回溯，逆序生成操作
+        int[] ops = new int[n + m];
+        int size = 0;
+        int x = n;
+        int y = m;
+        for (int d=found; d>0; d--) {
+            int[] prev = trace.get(d);
+            int k = x - y;
+            int prevK = (k==-d || (k!=d && prev[k-1+offset] < prev[k+1+offset])) ? k+1 : k-1;
+            int prevX = prev[prevK+offset];
+            int prevY = prevX - prevK;
+            while (x>prevX && y>prevY) {
+                ops[size++] = KEEP;
+                x--;
+                y--;
+            }
+            if (x == prevX) {
+                ops[size++] = INSERT;
+                y--;
+            } else {
+                ops[size++] = DELETE;
+                x--;
+            }
+        }
+        while (x>0 && y>0) {
+            ops[size++] = KEEP;
+            x--;
+            y--;
+        }
+
+        int[] result = new int[size];
+        for (int i=0; i<size; i++) {
+            result[i] = ops[size-1-i];
+        }
+        return result;
+    }
+
+    private static boolean equal(WheelAdapter a, int i, WheelAdapter b, int j) {
+        String s1 = a.getItem(i);
+        String s2 = b.getItem(j);
+        return s1==null ? s2==null : s1.equals(s2);
+    }
+}
@@ -0,0 +1,255 @@
+package cn.skw.widget;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.View;
+import android.widget.LinearLayout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * 级联的WheelView组(例如 省/市/区，年/月/日)。
+ *
+ * 第level个WheelView的数据由前面各级的选中值决定，通过DataProvider获取，
+ * 并按"前面各级的选中值"缓存，切换回来时不会重新获取。
+ *
+ * 某一级的选中项变化时，后面各级在同一次调用中依次更新：
+ * (01) 更新期间各级WheelView自身的回调被忽略，不会层层触发；
+ * (02) 更新期间子View的requestLayout()被合并，结束时只向上请求一次布局；
+ * (03) 所有级别更新完之后，才回调一次OnGroupChangeListener。
+ *
+ *      mWheelGroup = (WheelGroup)findViewById(R.id.wheel_group);
+ *      mWheelGroup.setOnGroupChangeListener(this);
+ *      // [必需] 设置数据，必须在最后调用
+ *      mWheelGroup.setDataProvider(provider);
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+public class WheelGroup extends LinearLayout {
+    private static final String TAG = "##skywang-WheelGroup";
+    private static final boolean DEBUG = false;
+
+    // 缓存key中各级选中值之间的分隔符
+    private static final char KEY_SEPARATOR = '\u0001';
+
+    // 各级WheelView
+    private ArrayList<WheelView> mWheels = new ArrayList<WheelView>();
+    // 各级的数据缓存：key是前面各级的选中值
+    private ArrayList<HashMap<String, WheelAdapter>> mCaches = new ArrayList<HashMap<String, WheelAdapter>>();
+    // 各级当前的选中值
+    private ArrayList<String> mValues = new ArrayList<String>();
+    // 数据源
+    private DataProvider mDataProvider;
+    // 是否正在批量更新
+    private boolean mInBatch;
+    // 批量更新期间是否有子View请求了布局
+    private boolean mLayoutPending;
+
+    private OnGroupChangeListener mGroupChangeListener;
+
+    // 级联数据源
+    public interface DataProvider {
+        /**
+         * 获取第level级的数据
+         *
+         * @param parents 前面各级(0 ~ level-1)的选中值
+         */
+        public WheelAdapter getData(int level, String[] parents);
+    }
+
+    // WheelGroup变化接口
+    public interface OnGroupChangeListener {
+        public void onSelected(int[] indexes, String[] values);
+    }
+
+    public WheelGroup(Context context) {
+        this(context, null);
+    }
+
+    public WheelGroup(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        setOrientation(HORIZONTAL);
+    }
+
+    @Override
+    protected void onFinishInflate() {
+        super.onFinishInflate();
+        // 布局文件中的WheelView按顺序作为各级
+        for (int i=0; i<getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child instanceof WheelView) {
+                attachWheel((WheelView) child);
+            }
+        }
+    }
+
+    /**
+     * 添加下一级WheelView(已经添加过的WheelView会被忽略)
+     */
+    public void addWheel(WheelView wheel) {
+        if (wheel.getParent() == null) {
+            addView(wheel, new LinearLayout.LayoutParams(0, LayoutParams.WRAP_CONTENT, 1.0f));
+        }
+        attachWheel(wheel);
+    }
+
+    /**
+     * 将wheel作为下一级；已经是某一级的wheel(例如布局文件中的子View)不会重复添加
+     *
+     * 使用单独的监听，不占用wheel的OnWheelChangeListener，
+     * 使用者仍然可以调用wheel.setOnWheelChangeListener()。
+     */
+    private void attachWheel(WheelView wheel) {
+        if (mWheels.contains(wheel)) {
+            return ;
+        }
+        final int level = mWheels.size();
+        mWheels.add(wheel);
+        mCaches.add(new HashMap<String, WheelAdapter>());
+        mValues.add(null);
+        wheel.setGroupListener(new WheelView.OnWheelChangeListener() {
+            @Override
+            public void onSelected(int index, String value) {
+                onWheelSelected(level, value);
+            }
+        });
+    }
+
+    /**
+     * 获取第level级的WheelView
+     */
+    public WheelView getWheel(int level) {
+        return mWheels.get(level);
+    }
+
+    public int getWheelCount() {
+        return mWheels.size();
+    }
+
+    /**
+     * 设置数据源，并刷新所有级别
+     */
+    public void setDataProvider(DataProvider provider) {
+        mDataProvider = provider;
+        clearCache();
+        refresh(0);
+    }
+
+    /**
+     * 清除缓存的数据(数据源的数据发生变化时调用)
+     */
+    public void clearCache() {
+        for (HashMap<String, WheelAdapter> cache : mCaches) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 设置WheelGroup选择项发生变化的监听接口
+     */
+    public void setOnGroupChangeListener(OnGroupChangeListener listener) {
+        mGroupChangeListener = listener;
+    }
+
+    /**
+     * 获取各级的选中项
+     */
+    public int[] getCurrentItems() {
+        int[] indexes = new int[mWheels.size()];
+        for (int i=0; i<indexes.length; i++) {
+            indexes[i] = mWheels.get(i).getCurrentItem();
+        }
+        return indexes;
+    }
+
+    /**
+     * 获取各级的选中值
+     */
+    public String[] getCurrentValues() {
+        return mValues.toArray(new String[mValues.size()]);
+    }
+
+    /**
+     * 第level级的选中项发生了变化
+     */
+    private void onWheelSelected(int level, String value) {
+        // 批量更新期间的回调，以及选中值没有变化的回调(例如setDataArray()之后的回调)，都直接忽略
+        if (mInBatch || equals(value, mValues.get(level))) {
+            return ;
+        }
+        mValues.set(level, value);
+        refresh(level+1);
+    }
+
+    /**
+     * 依次更新第from级及之后的所有级别
+     */
+    private void refresh(int from) {
+        if (mDataProvider == null) {
+            return ;
+        }
+        mInBatch = true;
+        try {
+            for (int level=from; level<mWheels.size(); level++) {
+                WheelView wheel = mWheels.get(level);
+                wheel.setAdapter(obtainData(level));
+                int index = wheel.getCurrentItem();
+                WheelAdapter adapter = wheel.getAdapter();
+                mValues.set(level, (index>=0 && index<adapter.getCount()) ? adapter.getItem(index) : null);
+            }
+        } finally {
+            mInBatch = false;
+        }
+        if (mLayoutPending) {
+            mLayoutPending = false;
+            super.requestLayout();
+        }
+        if (DEBUG) Log.d(TAG, "refresh from level "+from+": "+mValues);
+
+        if (mGroupChangeListener != null) {
+            mGroupChangeListener.onSelected(getCurrentItems(), getCurrentValues());
+        }
+    }
+
+    /**
+     * 获取第level级的数据(优先使用缓存)
+     */
+    private WheelAdapter obtainData(int level) {
+        String[] parents = new String[level];
+        StringBuilder key = new StringBuilder();
+        for (int i=0; i<level; i++) {
+            parents[i] = mValues.get(i);
+            key.append(parents[i]).append(KEY_SEPARATOR);
+        }
+
+        HashMap<String, WheelAdapter> cache = mCaches.get(level);
+        WheelAdapter adapter = cache.get(key.toString());
+        if (adapter == null) {
+            adapter = mDataProvider.getData(level, parents);
+            if (adapter == null) {
+                adapter = new ArrayWheelAdapter(new String[0]);
+            }
+            cache.put(key.toString(), adapter);
+        }
+        return adapter;
+    }
+
+    /**
+     * 批量更新期间，子View的布局请求只记录下来，结束时统一请求一次
+     */
+    @Override
+    public void requestLayout() {
+        if (mInBatch) {
+            mLayoutPending = true;
+            return ;
+        }
+        super.requestLayout();
+    }
+
+    private static boolean equals(String s1, String s2) {
+        return s1==null ? s2==null : s1.equals(s2);
+    }
+}
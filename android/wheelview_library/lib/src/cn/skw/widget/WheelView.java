@@ -10,14 +10,19 @@ import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.widget.ScrollView;
+import android.widget.Scroller;
 import android.widget.TextView;
 import android.widget.LinearLayout;
 
+import com.skw.java.metrics.WidgetMetrics;
+
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -34,6 +39,11 @@ import java.util.Arrays;
  *      mWheelView.setOnWheelChangeListener(this);
  *      // [可选] 设置显示个数，默认是3个。
  *      mWheelView.setDisplayNumber(3);
+ *      // [可选] 数据很多时，只保留可见的几个TextView并循环复用(RENDER_RECYCLE)，
+ *      //        或者直接在Canvas上绘制(RENDER_CANVAS)，默认是RENDER_VIEWS。
+ *      mWheelView.setRenderMode(WheelView.RENDER_RECYCLE);
+ *      // [可选] 循环显示(例如小时、分钟)，默认不循环。
+ *      mWheelView.setCyclic(true);
  *      // [可选] 设置加载时的选中项，默认是第一项。
  *      //        如果使用该接口，则setCurrentItem() 必须在setDisplayNumber()之后调用才有效。
  *      mWheelView.setCurrentItem(4);
@@ -51,8 +61,8 @@ public class WheelView extends ScrollView {
     private static final int DISPLAY_NUMBER_MIN     = 1;
     private static final int DISPLAY_NUMBER_MAX     = 9;
     private static final int DISPLAY_NUMBER_DEFAULT = 3;
-    // Scroll Check的频率(ms)
-    private static final int CHECK_FREQUENCE = 50;
+    // 对齐动画的时长(ms)
+    private static final int SNAP_DURATION = 200;
     // 选中字体的颜色
     private static final int SELECT_COLOR = 0xff45c01a;
     // 未选中字体的颜色
@@ -63,6 +73,19 @@ public class WheelView extends ScrollView {
     // 指示线 / 总长度的值
     private static final float INDICATOR_RATIO_DEFAULT = 1.0f;
 
+    // 渲染模式：每一项对应一个TextView
+    public static final int RENDER_VIEWS   = 0;
+    // 渲染模式：只保留(mDisplayNum+2)个TextView，滚动时循环复用
+    public static final int RENDER_RECYCLE = 1;
+    // 渲染模式：不使用TextView，直接在Canvas上绘制可见的行
+    public static final int RENDER_CANVAS  = 2;
+    // 循环模式下虚拟的行数(数据会被"重复"到至少这么多行，但不会真的复制)
+    private static final int CYCLIC_ROWS = 10000;
+    // 增量更新时最多允许的插入/删除次数，超过时直接重建
+    private static final int DIFF_MAX_EDITS = 200;
+    // 数据源不支持按文字查找时，更换数据后最多比较的项数
+    private static final int MAX_VALUE_SCAN = 1000;
+
     private int mSelectColor;
     private int mUnselectColor;
     private int mSelectSize    = 20; //24
@@ -81,21 +104,43 @@ public class WheelView extends ScrollView {
     private int mScrollY;
     // 每一项TextView的高度
     private int mItemHeight;
-    // 手指离开屏幕时的ScrollY的位置
-    private int mInitialPosition;
+    // 惯性滑动/对齐动画(终点总是mItemHeight的整数倍)
+    private Scroller mSnapScroller;
+    // mSnapScroller是否正在驱动滚动
+    private boolean mSnapping;
+    // 惯性滑动的最大速度(像素/秒)
+    private int mMaxFlingVelocity;
+    // 惯性滑动速度的放大倍数(>1时为加速模式，一次滑动可以越过更多的项)
+    private float mFlingVelocityScale = 1.0f;
     // 指示线的占宽比
     private float mIndicatorRatio;
 
     // 画线的Paint
     private Paint mLinePaint;
-    // 数据队列
-    private List<String> mDataList;
+    // 数据源
+    private WheelAdapter mAdapter;
     // 线性布局
     private LinearLayout mContainer;
     // 线性布局中TextView的LayoutParams
     private LinearLayout.LayoutParams mTextViewLayoutParam;
+    // 渲染模式
+    private int mRenderMode = RENDER_VIEWS;
+    // 复用TextView的容器(RENDER_RECYCLE模式)
+    private RecycleContainer mRecycler;
+    // 直接绘制文字的内容View(RENDER_CANVAS模式)
+    private CanvasContent mCanvasContent;
+    // 是否循环显示(最后一项之后接着第一项)
+    private boolean mCyclic = false;
+    // 当前显示为选中样式的TextView(RENDER_VIEWS模式)
+    private TextView mSelectedView;
+    // 前缀索引(第一次调用jumpTo()时创建，数据变化时失效)
+    private PrefixIndex mPrefixIndex;
 
     private OnWheelChangeListener mWheelChangeListener;
+    // 所属WheelGroup的监听(与mWheelChangeListener互不影响)
+    private OnWheelChangeListener mGroupListener;
+    // 耗时统计(null表示不统计)
+    private WidgetMetrics mMetrics;
 
     // WheelView变化接口
     public interface OnWheelChangeListener {
@@ -113,7 +158,9 @@ public class WheelView extends ScrollView {
     public WheelView(Context context, AttributeSet attrs, int defStyle) {
         super(context, attrs, defStyle);
 
-        mDataList = new ArrayList<String>();
+        mAdapter = new ArrayWheelAdapter(new String[0]);
+        mSnapScroller = new Scroller(context);
+        mMaxFlingVelocity = ViewConfiguration.get(context).getScaledMaximumFlingVelocity();
         mItemHeight = calculateItemHeight() + 20;
 
         mContainer = new LinearLayout(context);
@@ -134,6 +181,8 @@ public class WheelView extends ScrollView {
         int selectColor = a.getColor(R.styleable.WheelView_select_color, SELECT_COLOR);
         int unselectColor = a.getColor(R.styleable.WheelView_unselect_color, UNSELECT_COLOR);
         float indicatorRatio = a.getFloat(R.styleable.WheelView_indicator_ratio, INDICATOR_RATIO_DEFAULT);
+        int renderMode = a.getInt(R.styleable.WheelView_render_mode, RENDER_VIEWS);
+        boolean cyclic = a.getBoolean(R.styleable.WheelView_cyclic, false);
         // 回收TypedArray
         a.recycle();
         if (DEBUG) Log.d(TAG, "displayNumber="+displayNumber+", currentItem="+currentItem+", dataArrayId="+dataArrayId);
@@ -150,62 +199,277 @@ public class WheelView extends ScrollView {
         mTextViewLayoutParam = new LinearLayout.LayoutParams(LayoutParams.WRAP_CONTENT, mItemHeight);
         mTextViewLayoutParam.gravity = Gravity.CENTER;
 
+        mRecycler = new RecycleContainer(context);
+        mCanvasContent = new CanvasContent(context);
+        mRenderMode = checkRenderMode(renderMode);
+        if (cyclic) {
+            mCyclic = true;
+            if (mRenderMode == RENDER_VIEWS) {
+                mRenderMode = RENDER_RECYCLE;
+            }
+        }
+
         setDataArray(dataArrayId);
 
-        addView(mContainer);
+        addView(getContentView());
     }
 
-    public void setDataArray(int arrayResId) {
-        if (arrayResId==-1) {
+    /**
+     * 设置渲染模式
+     *
+     * RENDER_VIEWS  : 每一项对应一个TextView(默认)；
+     * RENDER_RECYCLE: 只保留(mDisplayNum+2)个TextView，滚动时重新绑定文字，
+     *                 内存和初始化时间与数据量无关，适合数据很多的情况。
+     * RENDER_CANVAS : 不使用TextView，用一个Paint直接绘制可见的行；
+     *                 选中项的字体大小和颜色随滚动的偏移渐变，滚动时不会触发布局。
+     * 后两种模式下宽度不随文字变化，WheelView应使用固定宽度或match_parent。
+     * 循环模式需要虚拟渲染：循环模式下设置RENDER_VIEWS时，使用RENDER_RECYCLE。
+     */
+    public void setRenderMode(int mode) {
+        mode = checkRenderMode(mode);
+        if (mCyclic && mode==RENDER_VIEWS) {
+            mode = RENDER_RECYCLE;
+        }
+        if (mode == mRenderMode) {
+            return ;
+        }
+        mRenderMode = mode;
+        mContainer.removeAllViews();
+        mRecycler.removeAllViews();
+        removeAllViews();
+        addView(getContentView());
+        setDataArray();
+    }
+
+    public int getRenderMode() {
+        return mRenderMode;
+    }
+
+    /**
+     * 设置是否循环显示
+     *
+     * 循环模式下，所有索引都按数据个数取模，行是虚拟的(只有可见的行才会绑定数据)，
+     * 因此不需要重复数据，内存与非循环模式相同。
+     * 循环模式需要虚拟渲染：若当前是RENDER_VIEWS，会切换为RENDER_RECYCLE。
+     */
+    public void setCyclic(boolean cyclic) {
+        if (cyclic == mCyclic) {
             return ;
         }
+        int item = getCurrentItem();
+        mCyclic = cyclic;
+        mIndex = rowOfItem(item);
+        if (cyclic && mRenderMode==RENDER_VIEWS) {
+            setRenderMode(RENDER_RECYCLE);
+        } else {
+            setDataArray();
+        }
+    }
+
+    public boolean isCyclic() {
+        return mCyclic;
+    }
 
-        // 清除mDataList
-        mDataList.clear();
+    private static int checkRenderMode(int mode) {
+        return (mode==RENDER_RECYCLE || mode==RENDER_CANVAS) ? mode : RENDER_VIEWS;
+    }
 
-        TypedArray array = getContext().getResources().obtainTypedArray(arrayResId);
-        for (int i=0; i<array.length(); i++) {
-            mDataList.add(array.getString(i));
+    /**
+     * 当前渲染模式对应的内容View
+     */
+    private View getContentView() {
+        if (mRenderMode == RENDER_RECYCLE) {
+            return mRecycler;
+        } else if (mRenderMode == RENDER_CANVAS) {
+            return mCanvasContent;
         }
-        array.recycle();
+        return mContainer;
+    }
 
-        setDataArray();
-        if (DEBUG) Log.d(TAG, "setData by Res: mDataList.size()="+mDataList.size());
+    /**
+     * 所有行(包括顶部和底部的偏移)的数目
+     */
+    private int getRowCount() {
+        if (mRenderMode == RENDER_VIEWS) {
+            return mContainer.getChildCount();
+        }
+        int count = mAdapter.getCount();
+        if (count == 0) {
+            return 0;
+        }
+        return (mCyclic ? count*getCyclicRepeat() : count) + 2*mOffset;
+    }
+
+    /**
+     * 循环模式下数据重复的次数(至少3次，保证选中项的前后都有数据)
+     */
+    private int getCyclicRepeat() {
+        return Math.max(3, CYCLIC_ROWS / Math.max(1, mAdapter.getCount()));
+    }
+
+    /**
+     * 第row行对应的数据索引；非循环模式下，偏移的行返回-1
+     */
+    private int getItemOfRow(int row) {
+        int count = mAdapter.getCount();
+        int index = row - mOffset;
+        if (mCyclic && count>0) {
+            return ((index % count) + count) % count;
+        }
+        return (index>=0 && index<count) ? index : -1;
+    }
+
+    /**
+     * 第index项数据对应的行；循环模式下取中间那一轮中的行
+     */
+    private int rowOfItem(int index) {
+        int count = mAdapter.getCount();
+        if (mCyclic && count>0) {
+            return mOffset + getCyclicRepeat()/2*count + index;
+        }
+        return index + mOffset;
+    }
+
+    public void setDataArray(int arrayResId) {
+        if (arrayResId==-1) {
+            return ;
+        }
+
+        setAdapter(new ArrayWheelAdapter(getContext(), arrayResId));
+        if (DEBUG) Log.d(TAG, "setData by Res: count="+mAdapter.getCount());
     }
 
     /*
-     * 设置WheelView的数据
+     * 设置WheelView的数据：整数区间[start, end]，不会为每一项生成String
      */
     public void setDataArray(int start, int end) {
-        List<String> list = new ArrayList<String>();
-        for (int i=start; i<=end; i++) {
-            list.add(String.valueOf(i));
-        }
-        setDataArray(list);
+        setAdapter(new NumericWheelAdapter(start, end));
     }
 
     /*
      * 设置WheelView的数据
      */
     public void setDataArray(String[] strs) {
-        List<String> list = Arrays.asList(strs);
-        setDataArray(list);
+        setAdapter(new ArrayWheelAdapter(strs.clone()));
     }
     /*
      * 设置WheelView的数据
      */
     public void setDataArray(List<String> list) {
-        mDataList.clear();
-        mDataList.addAll(list);
-        setDataArray();
+        setAdapter(new ArrayWheelAdapter(new ArrayList<String>(list)));
+    }
+
+    /**
+     * 设置WheelView的数据源
+     *
+     * RENDER_RECYCLE模式下只会查询可见的几项；RENDER_VIEWS模式下仍会为每一项创建TextView。
+     */
+    public void setAdapter(WheelAdapter adapter) {
+        WheelAdapter oldAdapter = mAdapter;
+        int item = getCurrentItem();
+        String value = (item>=0 && item<oldAdapter.getCount()) ? oldAdapter.getItem(item) : null;
+
+        // RENDER_VIEWS模式下，比较新旧数据，只插入、删除或重新绑定变化的TextView
+        int[] diff = null;
+        if (mRenderMode==RENDER_VIEWS && oldAdapter.getCount()>0
+                && mContainer.getChildCount()==oldAdapter.getCount()+2*mOffset) {
+            diff = WheelDiff.diff(oldAdapter, adapter, DIFF_MAX_EDITS);
+        }
+        mAdapter = adapter;
+
+        // 选中项的值在新数据中仍然存在时，保持选中该值
+        if (value != null) {
+            int newItem = (diff != null) ? WheelDiff.mapIndex(diff, item) : -1;
+            if (newItem < 0) {
+                // 编辑脚本可能把移动的值表示为删除+插入(例如[A,B,C]->[B,A,C])，此时按值查找
+                newItem = indexOfValue(value);
+            }
+            if (newItem >= 0) {
+                item = newItem;
+            }
+        }
+        if (mCyclic) {
+            // 数据个数变化后，行与数据的对应关系也会变化：回到中间那一轮
+            item = Math.max(0, Math.min(item, adapter.getCount()-1));
+        }
+        if (item >= 0) {
+            mIndex = rowOfItem(item);
+        }
+        updateDataArray(diff);
+    }
+
+    /**
+     * value在数据中的索引，不存在时返回-1
+     *
+     * 数据源实现了WheelAdapter.Searchable时直接查找；
+     * 否则最多比较前MAX_VALUE_SCAN项(按需生成文字的数据源每比较一项都会创建String)，
+     * 没有找到时保持原来的索引。
+     */
+    private int indexOfValue(String value) {
+        if (mAdapter instanceof WheelAdapter.Searchable) {
+            return ((WheelAdapter.Searchable) mAdapter).indexOf(value);
+        }
+        int count = Math.min(mAdapter.getCount(), MAX_VALUE_SCAN);
+        for (int i=0; i<count; i++) {
+            if (value.equals(mAdapter.getItem(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public WheelAdapter getAdapter() {
+        return mAdapter;
     }
 
     private void setDataArray() {
+        updateDataArray(null);
+    }
+
+    /**
+     * 根据mAdapter更新WheelView
+     *
+     * @param diff 旧数据到新数据的编辑脚本(RENDER_VIEWS模式)，null表示全部重建
+     */
+    private void updateDataArray(int[] diff) {
+        long start = mMetrics!=null ? System.nanoTime() : 0;
+        mPrefixIndex = null;
+        if (mRenderMode == RENDER_RECYCLE) {
+            // 只创建(mDisplayNum+2)个TextView，文字在滚动时绑定
+            mRecycler.reset(mDisplayNum+2);
+        } else if (mRenderMode == RENDER_CANVAS) {
+            mCanvasContent.requestLayout();
+            mCanvasContent.invalidate();
+        } else if (diff != null) {
+            applyDiff(diff);
+        } else {
+            setupTextViews();
+        }
+
+        // (重新)初始化颜色
+        initTextViews();
+        if (getCurrentItem() >= mAdapter.getCount()) {
+            // 防止数据改变之后，选中项发生了变化(没有数据时停在第0项，而不是上面的空白行)
+            setCurrentItem(Math.max(0, mAdapter.getCount()-1));
+        } else {
+            removeCallbacks(mScrollTask);
+            post(mScrollTask);
+        }
+        if (mMetrics != null) {
+            mMetrics.record(WidgetMetrics.OP_SET_DATA, System.nanoTime()-start);
+        }
+    }
+
+    /**
+     * 为每一项数据创建TextView(RENDER_VIEWS模式)
+     */
+    private void setupTextViews() {
         // 清空mContainer
         mContainer.removeAllViews();
 
-        for (String text:mDataList) {
-            mContainer.addView(createTextView(text), mTextViewLayoutParam);
+        int count = mAdapter.getCount();
+        for (int i=0; i<count; i++) {
+            mContainer.addView(createTextView(mAdapter.getItem(i)), mTextViewLayoutParam);
         }
 
         // 添加 顶部和底部的偏移
@@ -213,16 +477,49 @@ public class WheelView extends ScrollView {
             mContainer.addView(createTextView(""), 0, mTextViewLayoutParam);
             mContainer.addView(createTextView(""), mTextViewLayoutParam);
         }
+    }
 
-        // (重新)初始化颜色
-        initTextViews();
-        if (getCurrentItem() >= mDataList.size()) {
-            // 防止数据改变之后，选中项发生了变化
-            setCurrentItem(mDataList.size()-1);
-        } else {
-            removeCallbacks(mScrollTask);
-            post(mScrollTask);
+    /**
+     * 按编辑脚本增量更新TextView(RENDER_VIEWS模式)
+     *
+     * 连续的删除和插入优先配对为"重新设置文字"，剩余的才真正删除或创建TextView。
+     */
+    private void applyDiff(int[] diff) {
+        // 当前处理到的child位置(跳过顶部的偏移)
+        int position = mOffset;
+        // 当前处理到的新数据的索引
+        int newIndex = 0;
+        int i = 0;
+        while (i < diff.length) {
+            if (diff[i] == WheelDiff.KEEP) {
+                position++;
+                newIndex++;
+                i++;
+                continue;
+            }
+            // 一段连续的删除/插入
+            int deletes = 0;
+            int inserts = 0;
+            while (i<diff.length && diff[i]!=WheelDiff.KEEP) {
+                if (diff[i] == WheelDiff.DELETE) {
+                    deletes++;
+                } else {
+                    inserts++;
+                }
+                i++;
+            }
+            int rebinds = Math.min(deletes, inserts);
+            for (int k=0; k<rebinds; k++) {
+                ((TextView) mContainer.getChildAt(position++)).setText(mAdapter.getItem(newIndex++));
+            }
+            if (deletes > rebinds) {
+                mContainer.removeViews(position, deletes-rebinds);
+            }
+            for (int k=rebinds; k<inserts; k++) {
+                mContainer.addView(createTextView(mAdapter.getItem(newIndex++)), position++, mTextViewLayoutParam);
+            }
         }
+        if (DEBUG) Log.d(TAG, "applyDiff: ops="+diff.length+", count="+mAdapter.getCount());
     }
 
     /**
@@ -231,8 +528,9 @@ public class WheelView extends ScrollView {
     private TextView createTextView(CharSequence text) {
         TextView tv = new TextView(getContext());
         tv.setText(text);
-        tv.setTextSize(mSelectSize);
         tv.setGravity(Gravity.CENTER);
+        // 默认是未选中的样式，选中时只需要更新一个TextView
+        styleTextView(tv, false);
 
         return tv;
     }
@@ -241,29 +539,53 @@ public class WheelView extends ScrollView {
      * 更新TextView
      */
     private void initTextViews() {
-        int start = mOffset;
-        int end = start + mDataList.size();
-        for (int i=start; i<end; i++) {
-            TextView tv = (TextView) mContainer.getChildAt(i);
-            tv.setTextSize(i==mIndex ? mSelectSize : mUnselectSize);
-            tv.setTextColor(i==mIndex ? mSelectColor : mUnselectColor);
+        if (mRenderMode == RENDER_RECYCLE) {
+            mRecycler.setSelectedRow(mIndex);
+            return ;
+        } else if (mRenderMode == RENDER_CANVAS) {
+            // 字体大小和颜色在绘制时根据滚动偏移计算
+            return ;
         }
+        selectTextView(mIndex);
         if (DEBUG) Log.d(TAG, "init TextViews: mIndex: "+mIndex);
     }
 
+    /**
+     * 将第row行设为选中样式(RENDER_VIEWS模式)
+     *
+     * 只恢复上一个选中的TextView，并设置新的TextView，与数据个数无关。
+     * 记录的是TextView本身而不是行，因此增量更新数据后TextView移动了位置也能正确恢复。
+     */
+    private void selectTextView(int row) {
+        if (mSelectedView != null) {
+            styleTextView(mSelectedView, false);
+            mSelectedView = null;
+        }
+        if (row>=mOffset && row<mContainer.getChildCount()-mOffset) {
+            mSelectedView = (TextView) mContainer.getChildAt(row);
+            styleTextView(mSelectedView, true);
+        }
+    }
+
+    /**
+     * 设置TextView选中/未选中的样式(包内可见，单元测试中统计调用次数)
+     */
+    void styleTextView(TextView tv, boolean selected) {
+        tv.setTextSize(selected ? mSelectSize : mUnselectSize);
+        tv.setTextColor(selected ? mSelectColor : mUnselectColor);
+    }
+
     /**
      * 更新TextView
      */
-    private void refreshTextViews() {
-        int position = getIndexByScroll();
+    private void refreshTextViews(int scrollY) {
+        int position = getIndexByScroll(scrollY);
 
         if (position != mScrollPosition) {
-            int start = mOffset;
-            int end = mContainer.getChildCount() - mOffset;
-            for (int i=start; i<end; i++) {
-                TextView tv = (TextView) mContainer.getChildAt(i);
-                tv.setTextSize(i==position ? mSelectSize : mUnselectSize);
-                tv.setTextColor(i==position ? mSelectColor : mUnselectColor);
+            if (mRenderMode == RENDER_RECYCLE) {
+                mRecycler.setSelectedRow(position);
+            } else {
+                selectTextView(position);
             }
             if (DEBUG) Log.d(TAG, "refresh: position: "+mScrollPosition+" -> "+position);
             mScrollPosition = position;
@@ -340,7 +662,7 @@ public class WheelView extends ScrollView {
      * 设置WheelView的当前选项
      */
     public void setCurrentItem(int index) {
-        mIndex = index + mOffset;
+        mIndex = rowOfItem(index);
         removeCallbacks(mScrollTask);
         post(mScrollTask);
         if (DEBUG) Log.d(TAG, "setCurrentItem to "+mIndex);
@@ -350,14 +672,15 @@ public class WheelView extends ScrollView {
      * 获取WheelView的当前选项
      */
     public int getCurrentItem() {
-        return mIndex - mOffset;
+        return (mCyclic && mAdapter.getCount()>0) ? getItemOfRow(mIndex) : mIndex - mOffset;
     }
 
     /**
-     * 根据当前的偏移来获取被选中项的索引
+     * 根据偏移来获取被选中项的索引
+     *
+     * 使用onScrollChanged()传入的偏移，而不是getScrollY()，不依赖回调时mScrollY是否已经更新。
      */
-    private int getIndexByScroll() {
-        int scrollY = getScrollY();
+    private int getIndexByScroll(int scrollY) {
         int itemHeight = mItemHeight;
         int position = mOffset + scrollY/itemHeight;
         int remainder = scrollY % itemHeight;
@@ -382,9 +705,8 @@ public class WheelView extends ScrollView {
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
 
-        int count = mContainer.getChildCount();
+        int count = getRowCount();
         if (count >= mDisplayNum) {
-            View child = mContainer.getChildAt(0);
             // 每项的高度
             int itemHeight = mItemHeight;
             // 可见的高度
@@ -404,6 +726,24 @@ public class WheelView extends ScrollView {
         }
     }
 
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        long start = mMetrics!=null ? System.nanoTime() : 0;
+        super.onLayout(changed, l, t, r, b);
+        if (mMetrics != null) {
+            mMetrics.record(WidgetMetrics.OP_LAYOUT, System.nanoTime()-start);
+        }
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        long start = mMetrics!=null ? System.nanoTime() : 0;
+        super.draw(canvas);
+        if (mMetrics != null) {
+            mMetrics.record(WidgetMetrics.OP_DRAW, System.nanoTime()-start);
+        }
+    }
+
     @Override
     public void setBackgroundDrawable(Drawable background) {
 
@@ -441,93 +781,249 @@ public class WheelView extends ScrollView {
         super.setBackgroundDrawable(drawable);
     }
 
+    /**
+     * 惯性滑动
+     *
+     * 不使用ScrollView自身的fling，而是在开始时就计算出终点，
+     * 并将终点调整为mItemHeight的整数倍，动画结束时正好停在某一项上。
+     * 终点不会与滑动方向相反，即使速度很小也至少前进一项。
+     */
     @Override
     public void fling(int velocityY) {
-        super.fling(velocityY);
+        int itemHeight = mItemHeight;
+        if (itemHeight <= 0) {
+            super.fling(velocityY);
+            return ;
+        }
+        // 先按最大速度限制手指的速度，再放大：
+        // 否则放大后的速度又被限制回ScrollView已经限制过的系统最大速度，快速滑动时加速模式无效
+        if (mMaxFlingVelocity > 0) {
+            velocityY = Math.max(-mMaxFlingVelocity, Math.min(velocityY, mMaxFlingVelocity));
+        }
+        velocityY = (int)(velocityY * mFlingVelocityScale);
+        int scrollY = getScrollY();
+        mSnapScroller.fling(0, scrollY, 0, velocityY, 0, 0, 0, getMaxScrollY());
+        int finalY = snapScrollY(mSnapScroller.getFinalY());
+        if (velocityY>0 && finalY<=scrollY) {
+            finalY = Math.min((scrollY/itemHeight + 1) * itemHeight, getMaxScrollY() / itemHeight * itemHeight);
+        } else if (velocityY<0 && finalY>=scrollY) {
+            finalY = Math.max(((scrollY+itemHeight-1)/itemHeight - 1) * itemHeight, 0);
+        }
+        mSnapScroller.setFinalY(finalY);
+        mSnapping = true;
+        invalidate();
+        if (DEBUG) Log.d(TAG, "fling "+scrollY+" -> "+mSnapScroller.getFinalY());
     }
 
-    @Override
-    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
-        super.onScrollChanged(l, t, oldl, oldt);
-        // Log.d(TAG, "onScrollChanged, scrollY:"+getScrollY());
+    /**
+     * 跳到以prefix开头的数据(例如输入编号的前几位快速定位)
+     *
+     * 有多个数据匹配时，选择按字符串排序的第一个。
+     * 前缀索引在数据变化后第一次调用时创建(O(n log n))，之后每次查找都是O(log n)。
+     *
+     * @return 是否找到匹配的数据
+     */
+    public boolean jumpTo(String prefix) {
+        if (prefix == null) {
+            return false;
+        }
+        if (mPrefixIndex == null) {
+            mPrefixIndex = new PrefixIndex(mAdapter);
+        }
+        int index = mPrefixIndex.find(prefix);
+        if (index < 0) {
+            return false;
+        }
+        scrubTo(index);
+        return true;
+    }
+
+    /**
+     * 设置惯性滑动的摩擦系数(默认是ViewConfiguration.getScrollFriction())，越大减速越快
+     */
+    public void setFlingFriction(float friction) {
+        mSnapScroller.setFriction(friction);
+    }
+
+    /**
+     * 设置惯性滑动的最大速度(像素/秒)，0表示不限制
+     *
+     * 限制的是放大之前的手指速度，实际的惯性速度最大为 velocity * setFlingVelocityScale()的倍数。
+     */
+    public void setMaxFlingVelocity(int velocity) {
+        mMaxFlingVelocity = Math.max(0, velocity);
+    }
+
+    /**
+     * 设置惯性滑动速度的放大倍数(默认1.0)
+     *
+     * 数据很多时可以设置为大于1的值(加速模式)，一次滑动越过更多的项。
+     * 放大在最大速度的限制之后进行，因此对最快的滑动同样有效。
+     */
+    public void setFlingVelocityScale(float scale) {
+        mFlingVelocityScale = scale>0 ? scale : 1.0f;
+    }
+
+    /**
+     * 直接跳到第index项(快速定位)
+     *
+     * 与setCurrentItem()不同，这里不做平滑滚动，而是直接scrollTo()到目标位置，
+     * 不会逐项经过中间的数据；OnWheelChangeListener只在最后回调一次。
+     */
+    public void scrubTo(int index) {
+        int count = mAdapter.getCount();
+        if (count == 0) {
+            return ;
+        }
+        index = Math.max(0, Math.min(index, count-1));
+        if (getHeight()==0 || mItemHeight<=0) {
+            // 还没有布局，无法直接scrollTo()
+            setCurrentItem(index);
+            return ;
+        }
+        removeCallbacks(mScrollTask);
+        if (mSnapping) {
+            mSnapScroller.abortAnimation();
+            mSnapping = false;
+        }
+        mIndex = rowOfItem(index);
+        scrollTo(0, (mIndex-mOffset)*mItemHeight);
+        // 停止mScrollTask之前启动的smoothScrollTo()动画，否则computeScroll()会继续滚动，
+        // 停在与回调的选中项不同的位置。ScrollView没有提供停止动画的接口，
+        // 在新位置上启动一个位移为0的动画来替换它(必须在scrollTo()之后调用)。
+        smoothScrollBy(0, 0);
+        onWheelChangeCallback();
+    }
 
-        refreshTextViews();
+    /**
+     * 没有惯性滑动时，平移到最近的一项
+     */
+    private void snapToNearest() {
+        int scrollY = getScrollY();
+        int finalY = snapScrollY(scrollY);
+        if (finalY == scrollY) {
+            onSnapFinished();
+            return ;
+        }
+        mSnapScroller.startScroll(0, scrollY, 0, finalY-scrollY, SNAP_DURATION);
+        mSnapping = true;
+        invalidate();
     }
 
     @Override
-    public boolean onTouchEvent(MotionEvent ev) {
-        if (ev.getAction() == MotionEvent.ACTION_UP) {
-            startScrollCheckTask();
+    public void computeScroll() {
+        super.computeScroll();
+        if (!mSnapping) {
+            return ;
         }
+        if (mSnapScroller.computeScrollOffset()) {
+            scrollTo(0, mSnapScroller.getCurrY());
+            invalidate();
+        } else {
+            // 动画结束：此时正好停在某一项上
+            mSnapping = false;
+            onSnapFinished();
+        }
+    }
 
-        return super.onTouchEvent(ev);
+    /**
+     * 对齐完成，更新选中项并回调
+     */
+    private void onSnapFinished() {
+        mIndex = mOffset + getScrollY()/mItemHeight;
+        if (mCyclic) {
+            // 循环模式：无动画地跳回中间那一轮的同一项，两边始终有足够的行可以滚动
+            int row = rowOfItem(getCurrentItem());
+            if (row != mIndex) {
+                mIndex = row;
+                scrollTo(0, (row-mOffset)*mItemHeight);
+            }
+        }
+        if (DEBUG) Log.d(TAG, "snap finished, mIndex="+mIndex);
+        onWheelChangeCallback();
     }
 
-    /*
-     * 启动ScrollView的Check Task，检查ScrollView是否停止滚动。
+    /**
+     * 将scrollY调整为最近的mItemHeight的整数倍
      */
-    private void startScrollCheckTask() {
-        mInitialPosition = getScrollY();
-        postDelayed(mScrollCheckTask, CHECK_FREQUENCE);
-        if (DEBUG) Log.d(TAG, "startScrollCheckTask, mInitialPosition:"+mInitialPosition);
+    private int snapScrollY(int scrollY) {
+        int itemHeight = mItemHeight;
+        int snapped = (scrollY + itemHeight/2) / itemHeight * itemHeight;
+        return Math.max(0, Math.min(snapped, getMaxScrollY() / itemHeight * itemHeight));
     }
 
     /**
-     * ScrollView的Check Task，检查ScrollView是否停止滚动。
-     *
-     * (01) 当ScrollView停止滚动时，则将TextView平移到指定位置；
-     * (02) 否则，隔CHECK_FREQUENCE之后，再次启动Check Task
+     * 最大的scrollY
      */
-    private Runnable mScrollCheckTask = new Runnable() {
+    private int getMaxScrollY() {
+        return Math.max(0, (getRowCount()-mDisplayNum) * mItemHeight);
+    }
 
-        @Override
-        public void run() {
-            int currPosition = getScrollY();
+    @Override
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+        long start = mMetrics!=null ? System.nanoTime() : 0;
+        super.onScrollChanged(l, t, oldl, oldt);
+        // Log.d(TAG, "onScrollChanged, scrollY:"+getScrollY());
 
-            // 当scrollY停止变化时，表示ScrollView已经停止滚动。
-            if(mInitialPosition-currPosition == 0){
-                if (DEBUG) Log.d(TAG, "check scroll success!");
+        if (mRenderMode == RENDER_RECYCLE) {
+            mRecycler.bindRows(t);
+            refreshTextViews(t);
+        } else if (mRenderMode == RENDER_CANVAS) {
+            // 硬件加速时子View的绘制结果会被复用，需要主动重绘
+            mCanvasContent.invalidate();
+        } else {
+            refreshTextViews(t);
+        }
+        if (mMetrics != null) {
+            mMetrics.record(WidgetMetrics.OP_SCROLL, System.nanoTime()-start);
+        }
+    }
 
-                int itemHeight = mItemHeight;
-                // 滚动 对应的索引
-                int scrollIndex = currPosition/itemHeight;
-                // 滚动 对应的偏移
-                int scrollRemainder = currPosition % itemHeight;
-
-                // 当"可见的TextView不需要偏移时"，则不进行任何操作。
-                if (scrollRemainder == 0) {
-                    mIndex = mOffset + scrollIndex;
-                    onWheelChangeCallback();
-                    return ;
-                } else if (scrollRemainder > itemHeight/2) {
-                    scrollIndex++;
-                }
-                if (DEBUG) Log.d(TAG, "smooth scroll "+currPosition+" -> "+scrollIndex*itemHeight);
-                mIndex = mOffset + scrollIndex;
-                WheelView.this.post(mScrollTask);
-            }else{
-                mInitialPosition = getScrollY();
-                WheelView.this.postDelayed(mScrollCheckTask, CHECK_FREQUENCE);
-                if (DEBUG) Log.d(TAG, "check scroll again, mInitialPosition="+mInitialPosition);
-            }
+    @Override
+    public boolean onTouchEvent(MotionEvent ev) {
+        int action = ev.getAction();
+        if (action==MotionEvent.ACTION_DOWN && mSnapping) {
+            // 手指按下时停止正在进行的动画
+            mSnapScroller.abortAnimation();
+            mSnapping = false;
         }
-    };
+
+        boolean handled = super.onTouchEvent(ev);
+        // 抬起时若没有触发fling()，则直接对齐到最近的一项
+        if ((action==MotionEvent.ACTION_UP || action==MotionEvent.ACTION_CANCEL) && !mSnapping) {
+            snapToNearest();
+        }
+        return handled;
+    }
 
     /**
      * WheelView变化的回调
      */
     private void onWheelChangeCallback() {
-        if (mWheelChangeListener!= null) {
-            if (mDataList.size() > 0) {
+        if (mWheelChangeListener!=null || mGroupListener!=null) {
+            if (mAdapter.getCount() > 0) {
                 int index = getCurrentItem();
-                String value = mDataList.get(index);
+                String value = mAdapter.getItem(index);
 
                 if (DEBUG) Log.d(TAG, "onWheelChangeCallback: index="+index+", value="+value);
-                mWheelChangeListener.onSelected(index, value);
+                // 先让WheelGroup更新后面各级，再回调使用者
+                if (mGroupListener != null) {
+                    mGroupListener.onSelected(index, value);
+                }
+                if (mWheelChangeListener != null) {
+                    mWheelChangeListener.onSelected(index, value);
+                }
             }
         }
     }
 
+    /**
+     * 设置所属WheelGroup的监听(只由WheelGroup调用)
+     */
+    void setGroupListener(OnWheelChangeListener listener) {
+        mGroupListener = listener;
+    }
+
     /**
      * 设置WheelView选择项发生变化的监听接口
      */
@@ -535,11 +1031,201 @@ public class WheelView extends ScrollView {
         mWheelChangeListener = listener;
     }
 
+    /**
+     * 设置耗时统计
+     *
+     * 开启后，onLayout()、draw()、setDataArray()和onScrollChanged()的耗时会被记录到metrics中；
+     * 传入null则关闭统计。
+     */
+    public void setMetrics(WidgetMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    public WidgetMetrics getMetrics() {
+        return mMetrics;
+    }
+
     private Runnable mScrollTask = new Runnable() {
         @Override
         public void run() {
+            // 以指定的选中项为准，停止正在进行的对齐动画
+            if (mSnapping) {
+                mSnapScroller.abortAnimation();
+                mSnapping = false;
+            }
             smoothScrollTo(0, (mIndex-mOffset)*mItemHeight);
             onWheelChangeCallback();
         }
     }; 
+
+    /**
+     * 复用TextView的容器(RENDER_RECYCLE模式)
+     *
+     * 容器的高度是所有行的高度之和，这样ScrollView可以正常滚动；
+     * 但只有(mDisplayNum+2)个TextView。第row行固定由第(row % count)个TextView显示，
+     * 滚动一行时只需要重新绑定一个TextView。
+     */
+    private class RecycleContainer extends ViewGroup {
+        // 每个TextView当前显示的行(-1表示未绑定)
+        private int[] mBoundRows = new int[0];
+        // 选中的行
+        private int mSelectedRow = -1;
+
+        public RecycleContainer(Context context) {
+            super(context);
+        }
+
+        /**
+         * 重新创建count个TextView
+         */
+        void reset(int count) {
+            removeAllViews();
+            for (int i=0; i<count; i++) {
+                addView(createTextView(""), new LayoutParams(LayoutParams.MATCH_PARENT, mItemHeight));
+            }
+            mBoundRows = new int[count];
+            Arrays.fill(mBoundRows, -1);
+            requestLayout();
+        }
+
+        /**
+         * 设置选中的行，只更新前后两个TextView的样式
+         */
+        void setSelectedRow(int row) {
+            int old = mSelectedRow;
+            mSelectedRow = row;
+            restyle(old);
+            restyle(row);
+        }
+
+        /**
+         * 根据scrollY绑定可见的行
+         */
+        void bindRows(int scrollY) {
+            int count = getChildCount();
+            if (count==0 || mItemHeight<=0) {
+                return ;
+            }
+            int rowCount = getRowCount();
+            int first = Math.max(0, Math.min(scrollY/mItemHeight, rowCount-count));
+            int last = Math.min(first+count, rowCount);
+            for (int row=first; row<last; row++) {
+                int slot = row % count;
+                if (mBoundRows[slot] != row) {
+                    mBoundRows[slot] = row;
+                    TextView tv = (TextView) getChildAt(slot);
+                    int index = getItemOfRow(row);
+                    tv.setText(index>=0 ? mAdapter.getItem(index) : "");
+                    styleTextView(tv, row==mSelectedRow);
+                    int top = row * mItemHeight;
+                    tv.layout(0, top, getWidth(), top+mItemHeight);
+                }
+            }
+        }
+
+        private void restyle(int row) {
+            int count = getChildCount();
+            if (row<0 || count==0 || mBoundRows[row%count]!=row) {
+                return ;
+            }
+            styleTextView((TextView) getChildAt(row%count), row==mSelectedRow);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            int maxWidth = 0;
+            int childHeightSpec = MeasureSpec.makeMeasureSpec(mItemHeight, MeasureSpec.EXACTLY);
+            for (int i=0; i<getChildCount(); i++) {
+                View child = getChildAt(i);
+                child.measure(MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED), childHeightSpec);
+                maxWidth = Math.max(maxWidth, child.getMeasuredWidth());
+            }
+            int width = resolveSize(maxWidth, widthMeasureSpec);
+            int childWidthSpec = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY);
+            for (int i=0; i<getChildCount(); i++) {
+                getChildAt(i).measure(childWidthSpec, childHeightSpec);
+            }
+            setMeasuredDimension(width, getRowCount()*mItemHeight);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            // 重新放置所有TextView
+            Arrays.fill(mBoundRows, -1);
+            bindRows(WheelView.this.getScrollY());
+        }
+    }
+
+    /**
+     * 直接绘制文字的内容View(RENDER_CANVAS模式)
+     *
+     * 高度是所有行的高度之和，这样ScrollView可以正常滚动；
+     * onDraw()中只绘制可见的行。每一行的字体大小和颜色根据它与选中区域中心的距离
+     * 在未选中和选中之间线性插值，因此滚动过程中是连续变化的。
+     */
+    private class CanvasContent extends View {
+        private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        private final Paint.FontMetrics mFontMetrics = new Paint.FontMetrics();
+
+        public CanvasContent(Context context) {
+            super(context);
+            mTextPaint.setTextAlign(Paint.Align.CENTER);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            setMeasuredDimension(resolveSize(0, widthMeasureSpec), getRowCount()*mItemHeight);
+        }
+
+        @Override
+        protected void onDraw(Canvas canvas) {
+            int rowCount = getRowCount();
+            int itemHeight = mItemHeight;
+            if (rowCount==0 || itemHeight<=0) {
+                return ;
+            }
+            int scrollY = WheelView.this.getScrollY();
+            int first = scrollY/itemHeight;
+            int last = Math.min(rowCount-1, (scrollY+WheelView.this.getHeight())/itemHeight);
+            // 选中区域的中心
+            float center = scrollY + mOffset*itemHeight + itemHeight/2.0f;
+            float selectPx = toPixel(mSelectSize);
+            float unselectPx = toPixel(mUnselectSize);
+            float x = getWidth() / 2.0f;
+
+            for (int row=first; row<=last; row++) {
+                float rowCenter = row*itemHeight + itemHeight/2.0f;
+                // 1表示完全选中，0表示完全未选中
+                float fraction = Math.max(0, 1 - Math.abs(rowCenter-center)/itemHeight);
+
+                mTextPaint.setTextSize(unselectPx + (selectPx-unselectPx)*fraction);
+                mTextPaint.setColor(blendColor(mUnselectColor, mSelectColor, fraction));
+                mTextPaint.getFontMetrics(mFontMetrics);
+                float baseline = rowCenter - (mFontMetrics.ascent+mFontMetrics.descent)/2;
+                int index = getItemOfRow(row);
+                if (index < 0) {
+                    continue;
+                }
+                canvas.drawText(mAdapter.getItem(index), x, baseline, mTextPaint);
+            }
+        }
+
+        /**
+         * sp转换为像素(与TextView.setTextSize(float)的单位一致)
+         */
+        private float toPixel(float sp) {
+            return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp, getResources().getDisplayMetrics());
+        }
+    }
+
+    /**
+     * 按fraction混合两种颜色(各通道线性插值)
+     */
+    private static int blendColor(int from, int to, float fraction) {
+        int a = (int)(Color.alpha(from) + (Color.alpha(to)-Color.alpha(from))*fraction);
+        int r = (int)(Color.red(from) + (Color.red(to)-Color.red(from))*fraction);
+        int g = (int)(Color.green(from) + (Color.green(to)-Color.green(from))*fraction);
+        int b = (int)(Color.blue(from) + (Color.blue(to)-Color.blue(from))*fraction);
+        return Color.argb(a, r, g, b);
+    }
 }
@@ -0,0 +1,100 @@
+package cn.skw.widget;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.view.View.MeasureSpec;
+import android.widget.TextView;
+
+import com.skw.java.metrics.WidgetMetrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * 滚动时每越过一行的开销
+ *
+ * 分别用SMALL_COUNT和LARGE_COUNT个数据逐行滚动，统计：
+ * (01) styleTextView()的调用次数，应与数据个数无关：
+ *      RENDER_VIEWS  : 恢复上一个选中的TextView + 设置新的TextView，每行2次；
+ *      RENDER_RECYCLE: 重新绑定进入可见区域的TextView 1次 + 上面的2次，每行3次；
+ * (02) onScrollChanged()的耗时(通过WidgetMetrics.OP_SCROLL记录)，只输出，不断言。
+ *      Robolectric中每创建一个View都会注册一个无障碍的ContentObserver，之后每次滚动的耗时
+ *      与已创建的View个数成正比；因此RENDER_VIEWS模式在LARGE_COUNT时的耗时偏大，
+ *      RENDER_RECYCLE模式(只创建几个TextView)的耗时应与数据个数无关。
+ *
+ * @author skywang
+ * @e-mail kuiwu-wang@163.com
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class WheelViewStyleTest {
+    private static final int SMALL_COUNT = 100;
+    private static final int LARGE_COUNT = 2000;
+    // 每次统计越过的行数
+    private static final int CROSSED_ROWS = 60;
+
+    // 每种情况单独一个测试方法(每个方法使用新的应用)，前一种情况创建的View不影响后一种情况的耗时
+    @Test
+    public void viewsModeSmall() {
+        assertEquals(2*CROSSED_ROWS, crossRows(WheelView.RENDER_VIEWS, SMALL_COUNT));
+    }
+
+    @Test
+    public void viewsModeLarge() {
+        assertEquals(2*CROSSED_ROWS, crossRows(WheelView.RENDER_VIEWS, LARGE_COUNT));
+    }
+
+    @Test
+    public void recycleModeSmall() {
+        assertEquals(3*CROSSED_ROWS, crossRows(WheelView.RENDER_RECYCLE, SMALL_COUNT));
+    }
+
+    @Test
+    public void recycleModeLarge() {
+        assertEquals(3*CROSSED_ROWS, crossRows(WheelView.RENDER_RECYCLE, LARGE_COUNT));
+    }
+
+    /**
+     * 在count个数据中从第0项逐行滚动CROSSED_ROWS行，输出每行的开销，返回styleTextView()的调用次数
+     */
+    private static int crossRows(int renderMode, int count) {
+        CountingWheelView wheel = new CountingWheelView(RuntimeEnvironment.application);
+        wheel.setRenderMode(renderMode);
+        wheel.setAdapter(new NumericWheelAdapter(0, count-1));
+        wheel.measure(MeasureSpec.makeMeasureSpec(200, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+        wheel.layout(0, 0, wheel.getMeasuredWidth(), wheel.getMeasuredHeight());
+        wheel.scrubTo(0);
+
+        WidgetMetrics metrics = new WidgetMetrics();
+        wheel.setMetrics(metrics);
+        wheel.styleCalls = 0;
+        for (int i=1; i<=CROSSED_ROWS; i++) {
+            wheel.scrubTo(i);
+        }
+        assertEquals(CROSSED_ROWS, wheel.getCurrentItem());
+
+        WidgetMetrics.Snapshot scroll = metrics.snapshot(WidgetMetrics.OP_SCROLL);
+        System.out.println(String.format("mode=%d, count=%d: styleTextView %.2f calls/row, onScrollChanged p50=%dns p90=%dns (%d calls)",
+                renderMode, count, (float)wheel.styleCalls/CROSSED_ROWS, scroll.p50, scroll.p90, scroll.count));
+        return wheel.styleCalls;
+    }
+
+    private static class CountingWheelView extends WheelView {
+        int styleCalls;
+
+        CountingWheelView(Context context) {
+            super(context);
+        }
+
+        @Override
+        void styleTextView(TextView tv, boolean selected) {
+            styleCalls++;
+            super.styleTextView(tv, selected);
+        }
+    }
+}